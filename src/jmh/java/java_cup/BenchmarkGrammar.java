@@ -0,0 +1,131 @@
+package java_cup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The grammars the benchmarks run on: the bundled grammar of the generator itself, and synthetic grammars scaled by
+ * a size parameter, about the count of productions they have.
+ */
+public enum BenchmarkGrammar {
+
+    /**
+     * The bundled {@code Parser.cup}, the size is ignored.
+     */
+    BUNDLED {
+        @Override
+        public String source(int size) {
+            try (InputStream in = BenchmarkGrammar.class.getResourceAsStream("/Parser.cup")) {
+                if (in == null) {
+                    throw new IllegalStateException("Parser.cup is not on the class path");
+                }
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    },
+
+    /**
+     * A tower of {@code size / 2} binary operator levels, each left recursive over the next one:
+     * <pre>
+     *   e0 ::= e0 OP0 e1 | e1;
+     *   ...
+     *   eN ::= ID | NUM | LPAREN e0 RPAREN;
+     * </pre>
+     */
+    EXPRESSIONS {
+        @Override
+        public String source(int size) {
+            final int levels = Math.max(1, size / 2);
+            final StringBuilder out = new StringBuilder();
+            out.append("terminal String ID, NUM;\nterminal LPAREN, RPAREN");
+            for (int i = 0; i < levels; i++) {
+                out.append(", OP").append(i);
+            }
+            out.append(";\nnonterminal String e0");
+            for (int i = 1; i <= levels; i++) {
+                out.append(", e").append(i);
+            }
+            out.append(";\n\n");
+            for (int i = 0; i < levels; i++) {
+                out.append("e").append(i).append(" ::= e").append(i).append(":l OP").append(i)
+                        .append(" e").append(i + 1).append(":r {: yield %l% + %r%; :}\n")
+                        .append("    | e").append(i + 1).append(":$\n    ;\n");
+            }
+            out.append("e").append(levels).append(" ::= ID:$ | NUM:$ | LPAREN e0:$ RPAREN;\n");
+            return out.toString();
+        }
+    },
+
+    /**
+     * A list of statements, each introduced by one of {@code size} keywords:
+     * <pre>
+     *   program ::= stmt[];
+     *   stmt ::= KW0 ID SEMI | KW1 ID[COMMA] SEMI | KW2 ID EQ ID SEMI | ...;
+     * </pre>
+     */
+    KEYWORDS {
+        @Override
+        public String source(int size) {
+            final StringBuilder out = new StringBuilder();
+            out.append("terminal String ID;\nterminal SEMI, COMMA, EQ");
+            for (int i = 0; i < size; i++) {
+                out.append(", KW").append(i);
+            }
+            out.append(";\nnonterminal program, stmt;\n\n");
+            out.append("program ::= stmt[];\n\n");
+            out.append("stmt ::=");
+            for (int i = 0; i < size; i++) {
+                out.append(i == 0 ? " " : "\n    | ").append("KW").append(i);
+                switch (i % 3) {
+                    case 0 -> out.append(" ID SEMI");
+                    case 1 -> out.append(" ID[COMMA] SEMI");
+                    default -> out.append(" ID EQ ID SEMI");
+                }
+            }
+            out.append("\n    ;\n");
+            return out.toString();
+        }
+    },
+
+    /**
+     * {@code size / 6} levels of bracketed blocks, each one nesting the next level, optionally and in lists:
+     * <pre>
+     *   b0 ::= OPEN0 b1[]? CLOSE0 | b1;
+     *   ...
+     *   bN ::= ID;
+     * </pre>
+     */
+    NESTING {
+        @Override
+        public String source(int size) {
+            final int levels = Math.max(1, size / 6);
+            final StringBuilder out = new StringBuilder();
+            out.append("terminal String ID");
+            for (int i = 0; i < levels; i++) {
+                out.append(", OPEN").append(i).append(", CLOSE").append(i);
+            }
+            out.append(";\nnonterminal b0");
+            for (int i = 1; i <= levels; i++) {
+                out.append(", b").append(i);
+            }
+            out.append(";\n\n");
+            for (int i = 0; i < levels; i++) {
+                out.append("b").append(i).append(" ::= OPEN").append(i).append(" b").append(i + 1)
+                        .append("[]? CLOSE").append(i).append(" | b").append(i + 1).append(";\n");
+            }
+            out.append("b").append(levels).append(" ::= ID;\n");
+            return out.toString();
+        }
+    };
+
+    /**
+     * The source of the grammar.
+     *
+     * @param size the scale of a synthetic grammar
+     */
+    public abstract String source(int size);
+}
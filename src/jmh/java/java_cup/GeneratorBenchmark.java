@@ -0,0 +1,56 @@
+package java_cup;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The whole generator pipeline, from parsing the grammar to writing the parser.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeneratorBenchmark {
+
+    @Param
+    BenchmarkGrammar grammar;
+
+    /**
+     * The scale of the synthetic grammars, ignored by {@link BenchmarkGrammar#BUNDLED}.
+     */
+    @Param({"100", "1000"})
+    int size;
+
+    private GeneratorPipeline pipeline;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        pipeline = new GeneratorPipeline(grammar.source(size));
+        pipeline.generate();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        pipeline.delete();
+    }
+
+    @Benchmark
+    public LalrState generate() throws Exception {
+        return pipeline.generate().startState;
+    }
+}
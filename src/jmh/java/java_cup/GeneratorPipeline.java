@@ -0,0 +1,107 @@
+package java_cup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Runs the phases of a {@link GrammarContext} one by one on a grammar source, writing to a temporary directory.
+ */
+public final class GeneratorPipeline {
+
+    /**
+     * The phases, in the order they must run.
+     */
+    public enum Phase {
+        PARSE,
+        ACTIONS,
+        CHECK,
+        NULLABILITY,
+        FIRST_SETS,
+        STATE_MACHINE,
+        LOOKAHEADS,
+        TABLE_FILL,
+        CONFLICTS,
+        TERMINAL_CLASSES,
+        EMIT
+    }
+
+    private final String source;
+    private final File destDir;
+    private final GrammarCompiler compiler = new GrammarCompiler();
+    private GrammarContext context;
+    private Map<LalrState, TerminalSet> conflicts;
+
+    GeneratorPipeline(String source) throws IOException {
+        this.source = source;
+        this.destDir = Files.createTempDirectory("java_cup-jmh").toFile();
+    }
+
+    /**
+     * Runs all the phases like {@link GrammarCompiler#compile}, and fails if the grammar has errors.
+     *
+     * @return the context of the generation
+     */
+    GrammarContext generate() throws Exception {
+        run(Phase.PARSE);
+        if (!context.generate()) {
+            throw new IllegalStateException("The grammar has errors or unexpected conflicts");
+        }
+        return context;
+    }
+
+    /**
+     * Runs the phases before the given one.
+     */
+    void prepare(Phase phase) throws Exception {
+        for (Phase before : Phase.values()) {
+            if (before == phase) {
+                return;
+            }
+            run(before);
+        }
+    }
+
+    Object run(Phase phase) throws Exception {
+        switch (phase) {
+            case PARSE -> {
+                context = new GrammarContext(compiler, OutputSink.directories(destDir, destDir));
+                context.parse(new StringReader(source));
+                return context.productions;
+            }
+            case ACTIONS -> context.compileActions();
+            case CHECK -> context.checkUnused();
+            case NULLABILITY -> context.computeNullability();
+            case FIRST_SETS -> context.computeFirstSets();
+            case STATE_MACHINE -> {
+                context.buildMachine();
+                return context.startState;
+            }
+            case LOOKAHEADS -> LalrState.propagateLookaheads(context);
+            case TABLE_FILL -> {
+                conflicts = context.fillTables();
+                return context.actionTable;
+            }
+            case CONFLICTS -> {
+                conflicts.forEach(LalrState::report_conflicts);
+                context.checkReductions();
+            }
+            case TERMINAL_CLASSES -> context.classifyTerminals();
+            case EMIT -> context.emit();
+        }
+        return null;
+    }
+
+    void delete() throws IOException {
+        try (Stream<Path> files = Files.walk(destDir.toPath())) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package java_cup;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One phase of the generator at a time. The phases before it run in the per invocation setup, so only the phase
+ * itself is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(1)
+public class PhaseBenchmark {
+
+    @Param
+    BenchmarkGrammar grammar;
+
+    /**
+     * The scale of the synthetic grammars, ignored by {@link BenchmarkGrammar#BUNDLED}.
+     */
+    @Param({"100", "1000"})
+    int size;
+
+    @Param
+    GeneratorPipeline.Phase phase;
+
+    private GeneratorPipeline pipeline;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        pipeline = new GeneratorPipeline(grammar.source(size));
+        pipeline.generate();
+    }
+
+    @Setup(Level.Invocation)
+    public void prepare() throws Exception {
+        pipeline.prepare(phase);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        pipeline.delete();
+    }
+
+    @Benchmark
+    public Object run() throws Exception {
+        return pipeline.run(phase);
+    }
+}
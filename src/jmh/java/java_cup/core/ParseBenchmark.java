@@ -0,0 +1,88 @@
+package java_cup.core;
+
+import java_cup.BenchmarkGrammar;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse throughput of the runtime on pre-tokenized inputs, so the lexer is not measured. The inputs are grammar
+ * sources, since the runtime carries the tables of the bundled grammar: the bundled {@code Parser.cup} and the
+ * synthetic grammars of the generator benchmarks.
+ * <p>
+ * {@link #token()} feeds one token per operation, so its throughput is in tokens per second, and with
+ * {@code -prof gc} its {@code gc.alloc.rate.norm} is the allocation per token.
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param
+    BenchmarkGrammar input;
+
+    /**
+     * The scale of the synthetic inputs, ignored by {@link BenchmarkGrammar#BUNDLED}.
+     */
+    @Param({"1000", "10000"})
+    int size;
+
+    private Symbol[] tokens;
+    private RecognizerParser parser;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        tokens = RecognizerParser.tokenize(input.source(size));
+        parser = new RecognizerParser();
+        parse();
+        if (!parser.syntaxErrors.isEmpty()) {
+            throw new IllegalStateException("The input has syntax errors: " + parser.syntaxErrors);
+        }
+        parser.start();
+        next = 0;
+    }
+
+    /**
+     * Parses the whole input.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Symbol parse() throws Exception {
+        final RecognizerParser myParser = this.parser;
+        myParser.start();
+        for (Symbol token : tokens) {
+            if (!myParser.feed(token)) {
+                break;
+            }
+        }
+        return myParser.result();
+    }
+
+    /**
+     * Feeds the next token, starting over once the input is accepted.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public boolean token() throws Exception {
+        if (parser.feed(tokens[next++])) {
+            return true;
+        }
+        parser.start();
+        next = 0;
+        return false;
+    }
+}
@@ -0,0 +1,122 @@
+package java_cup.core;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A parser of the bundled grammar without its actions, it only recognizes the input. The start production is the
+ * only one whose handle ends with {@code EOF}, that is where it accepts. The empty handles are excluded, the bottom
+ * of the stack has the id of {@code EOF} too.
+ */
+final class RecognizerParser extends BaseParser {
+
+    /**
+     * The table lookups and the stack operations of the parses, recorded if not null.
+     */
+    Trace trace;
+    private int lookahead;
+
+    @Override
+    Object doAction(int actionId) {
+        final Stack<Symbol> stack = this.tokenStack;
+        if (trace != null) {
+            trace.reduce(stack, actionId, lookahead);
+        }
+        if (PRODUCTION_TABLE.get(actionId, 1) != 0 && stack.peek().id == Tokens.EOF) {
+            goonParse = false;
+        }
+        return null;
+    }
+
+    /**
+     * Parses all the tokens, recording the lookups and stack operations.
+     */
+    Trace trace(Symbol[] tokens) throws Exception {
+        final Trace result = this.trace = new Trace();
+        start();
+        for (Symbol token : tokens) {
+            lookahead = token.id;
+            result.action(tokenStack.peek().state, token.id);
+            final boolean more = feed(token);
+            result.stackOps.add(Trace.SHIFT);
+            if (!more) {
+                break;
+            }
+        }
+        this.trace = null;
+        return result;
+    }
+
+    /**
+     * Scans the input into its tokens, the last one is {@code EOF}.
+     */
+    static Symbol[] tokenize(String input) throws IOException {
+        final Lexer lexer = new Lexer(new StringReader(input));
+        final List<Symbol> tokens = new ArrayList<>();
+        Symbol token;
+        do {
+            tokens.add(token = lexer.nextToken());
+        } while (token.id != Tokens.EOF);
+        return tokens.toArray(new Symbol[0]);
+    }
+
+    /**
+     * The table lookups and stack operations of a parse, in order.
+     */
+    static final class Trace {
+
+        static final int SHIFT = -1;
+
+        /**
+         * The state and symbol of every action lookup, flattened.
+         */
+        final IntArray actions = new IntArray();
+        /**
+         * The state and non terminal of every goto lookup, flattened.
+         */
+        final IntArray gotos = new IntArray();
+        /**
+         * {@link #SHIFT} for a shift, else the handle size popped by a reduction before it pushes.
+         */
+        final IntArray stackOps = new IntArray();
+
+        void action(int state, int sym) {
+            actions.add(state);
+            actions.add(sym);
+        }
+
+        void reduce(Stack<Symbol> stack, int production, int lookahead) {
+            final int symId = PRODUCTION_TABLE.get(production, 0);
+            final int handleSize = PRODUCTION_TABLE.get(production, 1);
+            final int state = stack.peek(handleSize).state;
+            gotos.add(state);
+            gotos.add(symId);
+            stackOps.add(handleSize);
+            // the next action is looked up in the goto state, there is none after the start production
+            final int next = getReduce(state, symId);
+            if (next >= 0) {
+                action(next, lookahead);
+            }
+        }
+    }
+
+    static final class IntArray {
+
+        private int[] values = new int[1024];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package java_cup.core;
+
+import java_cup.BenchmarkGrammar;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The table lookups and the stack operations of the runtime, replayed from the trace of a real parse, and the load
+ * of the tables from their resources. Every replay runs {@value #OPS} operations, the scores are per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TableBenchmark {
+
+    static final int OPS = 4096;
+
+    @Param({"BUNDLED", "EXPRESSIONS"})
+    BenchmarkGrammar input;
+
+    private int[] actionStates;
+    private int[] actionSymbols;
+    private int[] gotoStates;
+    private int[] gotoSymbols;
+    private int[] stackOps;
+    private final Stack<Symbol> stack = new Stack<>(24);
+    private final Symbol symbol = new Symbol(0, null);
+
+    @Setup
+    public void setup() throws Exception {
+        final RecognizerParser.Trace trace = new RecognizerParser()
+                .trace(RecognizerParser.tokenize(input.source(1000)));
+
+        final int[] actions = trace.actions.toArray();
+        actionStates = new int[OPS];
+        actionSymbols = new int[OPS];
+        for (int i = 0; i < OPS; i++) {
+            final int at = (i << 1) % actions.length;
+            actionStates[i] = actions[at];
+            actionSymbols[i] = BaseParser.terminalClass(actions[at + 1]);
+        }
+
+        final int[] gotos = trace.gotos.toArray();
+        gotoStates = new int[OPS];
+        gotoSymbols = new int[OPS];
+        for (int i = 0; i < OPS; i++) {
+            final int at = (i << 1) % gotos.length;
+            gotoStates[i] = gotos[at];
+            gotoSymbols[i] = gotos[at + 1];
+        }
+
+        final int[] ops = trace.stackOps.toArray();
+        stackOps = new int[OPS];
+        for (int i = 0; i < OPS; i++) {
+            stackOps[i] = ops[i % ops.length];
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public int getAction() {
+        final int[] states = this.actionStates;
+        final int[] symbols = this.actionSymbols;
+        int sum = 0;
+        for (int i = 0; i < OPS; i++) {
+            sum += BaseParser.getAction(states[i], symbols[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public int getReduce() {
+        final int[] states = this.gotoStates;
+        final int[] symbols = this.gotoSymbols;
+        int sum = 0;
+        for (int i = 0; i < OPS; i++) {
+            sum += BaseParser.getReduce(states[i], symbols[i]);
+        }
+        return sum;
+    }
+
+    /**
+     * The pushes and pops of the parse, a reduction pops its handle and pushes the result.
+     */
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public void stack(Blackhole blackhole) {
+        final Stack<Symbol> myStack = this.stack;
+        final int[] ops = this.stackOps;
+        myStack.clear();
+        myStack.push(symbol);
+        for (int i = 0; i < OPS; i++) {
+            final int op = ops[i];
+            if (op > 0) {
+                if (myStack.size() <= op) {
+                    // the replay wrapped around to the start of the parse
+                    myStack.clear();
+                    myStack.push(symbol);
+                    continue;
+                }
+                blackhole.consume(myStack.peek(op - 1));
+                myStack.pops(op);
+            }
+            myStack.push(symbol);
+        }
+    }
+
+    /**
+     * Deserializes the action table, like the class initialization of the parser does.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Table loadActionTable() {
+        return BaseParser.loadData("Action");
+    }
+}
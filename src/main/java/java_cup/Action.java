@@ -1,25 +1,60 @@
 package java_cup;
 
-public interface Action {
+/**
+ * The actions of the action table, encoded as ints the way the parser reads them: a shift as the id of the state
+ * shifted to plus one, a reduce as minus the id of the reduced production minus one, zero for an error. The action of
+ * two non associative terminals of the same precedence in a row is a syntax error too, but is told apart from no
+ * action while the table is built.
+ */
+public final class Action {
 
-    Action ERROR_ACTION = new Action() {
+    public static final int ERROR = 0;
+    public static final int NONASSOC = Integer.MIN_VALUE;
 
-        public int type() {
-            return ERROR;
-        }
-    };
-    
-    Action NONASSOC_ACTION = new Action() {
+    private Action() {
+    }
 
-        public int type() {
-            return NONASSOC;
-        }
-    };
+    public static int shift(int toState) {
+        return toState + 1;
+    }
+
+    public static int reduce(Production with) {
+        return reduce(with.id);
+    }
+
+    public static int reduce(int production) {
+        return -(production + 1);
+    }
+
+    public static boolean isShift(int action) {
+        return action > 0;
+    }
 
-    int ERROR = 0;
-    int SHIFT = 1;
-    int REDUCE = 2;
-    int NONASSOC = 3;
+    public static boolean isReduce(int action) {
+        return action < 0 && action != NONASSOC;
+    }
 
-    int type();
+    /**
+     * The id of the state a shift goes to.
+     */
+    public static int shiftState(int action) {
+        return action - 1;
+    }
+
+    /**
+     * The id of the production a reduce reduces with.
+     */
+    public static int reduceProduction(int action) {
+        return -action - 1;
+    }
+
+    public static String toString(int action) {
+        if (isShift(action)) {
+            return "SHIFT -> " + shiftState(action);
+        }
+        if (isReduce(action)) {
+            return "REDUCE -> " + reduceProduction(action);
+        }
+        return action == NONASSOC ? "NONASSOC" : "ERROR";
+    }
 }
@@ -0,0 +1,170 @@
+package java_cup;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles the action of a production in one pass over its text: every {@code %label%}, {@code %label.line%},
+ * {@code %label.column%} and {@code %label.symbol%} is found once and replaced by the read of the stack it stands
+ * for. A label read more than once, or read for its position or symbol, gets a local variable holding its stack
+ * symbol, the others read the stack in place. A {@code %...%} that names no label is left as it is.
+ * <p>
+ * Along with the code, the template tells what the action reads of every symbol of the right hand side.
+ */
+final class ActionTemplate {
+
+    static final int VALUE = 1;
+    static final int LINE = 2;
+    static final int COLUMN = 4;
+    static final int SYMBOL = 8;
+
+    /**
+     * A cast of a value yielded as it is, which is of the type of the result already.
+     */
+    private static final Pattern YIELD_CAST
+            = Pattern.compile("yield \\([a-zA-Z0-9_$]+\\) (myStack\\.peek\\([0-9]+\\)\\.value;)");
+
+    private ActionTemplate() {
+    }
+
+    /**
+     * A compiled action.
+     *
+     * @param code the code of the action
+     * @param reads by symbol of the right hand side, the flags of what the action reads of it
+     */
+    record Compiled(
+            String code,
+            int[] reads
+    ) {
+
+        /**
+         * Whether the action reads the line, the column or the symbol of a non terminal of the given right hand
+         * side. The tokens always have their position.
+         */
+        boolean readsPositions(ProductionItem[] rhs) {
+            for (int i = 0; i < rhs.length; i++) {
+                if ((reads[i] & (LINE | COLUMN | SYMBOL)) != 0 && rhs[i].sym() instanceof NonTerminal) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    static Compiled compile(ProductionItem[] rhs, String code) {
+        final int[] reads = new int[rhs.length];
+        if (code.indexOf('%') < 0) {
+            return new Compiled(code, reads);
+        }
+
+        // the first symbol of every label, a label given twice stands for its first symbol
+        final Map<String, Integer> labels = new HashMap<>();
+        boolean inPlace = false;
+        for (int i = 0; i < rhs.length; i++) {
+            final String label = rhs[i].label();
+            if (label != null && labels.putIfAbsent(label, i) != null) {
+                inPlace = true;
+            }
+        }
+        if (labels.isEmpty()) {
+            return new Compiled(code, reads);
+        }
+
+        // the placeholders, as their start, end, symbol and what they read
+        int[] found = new int[16];
+        int count = 0;
+        final int[] values = new int[rhs.length];
+        int at = code.indexOf('%');
+        while (at >= 0) {
+            final int end = code.indexOf('%', at + 1);
+            if (end < 0) {
+                break;
+            }
+            final String name = code.substring(at + 1, end);
+            int item = -1;
+            int kind = VALUE;
+            final Integer labeled = labels.get(name);
+            if (labeled != null) {
+                item = labeled;
+            } else {
+                final int dot = name.lastIndexOf('.');
+                if (dot > 0) {
+                    kind = switch (name.substring(dot + 1)) {
+                        case "line" -> LINE;
+                        case "column" -> COLUMN;
+                        case "symbol" -> SYMBOL;
+                        default -> 0;
+                    };
+                    final Integer dotted = kind != 0 ? labels.get(name.substring(0, dot)) : null;
+                    if (dotted != null) {
+                        item = dotted;
+                    }
+                }
+            }
+            if (item < 0) {
+                // not a placeholder, its closing % may open the next one
+                at = end;
+                continue;
+            }
+            if (count + 4 > found.length) {
+                found = Arrays.copyOf(found, found.length << 1);
+            }
+            found[count++] = at;
+            found[count++] = end + 1;
+            found[count++] = item;
+            found[count++] = kind;
+            reads[item] |= kind;
+            if (kind == VALUE) {
+                values[item]++;
+            }
+            at = code.indexOf('%', end + 1);
+        }
+
+        final StringBuilder declaration = new StringBuilder();
+        final boolean[] local = new boolean[rhs.length];
+        for (int i = 0; i < rhs.length; i++) {
+            if (rhs[i].label() == null || labels.get(rhs[i].label()) != i) {
+                continue;
+            }
+            local[i] = values[i] > 1 || (reads[i] & (LINE | COLUMN | SYMBOL)) != 0;
+            if (local[i]) {
+                declaration.append("                var ").append(rhs[i].label()).append("Symbol = myStack.peek(")
+                        .append(rhs.length - i - 1).append(");\n");
+            } else {
+                inPlace = true;
+            }
+        }
+
+        final StringBuilder body = new StringBuilder(code.length() + (count << 3));
+        int from = 0;
+        for (int f = 0; f < count; f += 4) {
+            body.append(code, from, found[f]);
+            from = found[f + 1];
+            final int item = found[f + 2];
+            final String label = rhs[item].label();
+            switch (found[f + 3]) {
+                case VALUE -> {
+                    final String type = rhs[item].sym().type;
+                    if (!"Object".equals(type)) {
+                        body.append('(').append(type).append(") ");
+                    }
+                    if (local[item]) {
+                        body.append(label).append("Symbol.value");
+                    } else {
+                        body.append("myStack.peek(").append(rhs.length - item - 1).append(").value");
+                    }
+                }
+                case LINE -> body.append(label).append("Symbol.line()");
+                case COLUMN -> body.append(label).append("Symbol.column()");
+                default -> body.append(label).append("Symbol");
+            }
+        }
+        body.append(code, from, code.length());
+
+        final String resolved = inPlace ? YIELD_CAST.matcher(body).replaceAll("yield $1") : body.toString();
+        return new Compiled(declaration.append(resolved).toString(), reads);
+    }
+}
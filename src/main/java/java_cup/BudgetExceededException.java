@@ -0,0 +1,14 @@
+package java_cup;
+
+/**
+ * Thrown when building the state machine goes over one of the generation budgets, the message lists the top
+ * contributors to the machine built so far.
+ */
+public class BudgetExceededException extends InternalException {
+
+    private static final long serialVersionUID = 1L;
+
+    public BudgetExceededException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,71 @@
+package java_cup;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A conflict of a state that the precedences do not resolve: a completed item reducing under terminals that the
+ * state also shifts, or two completed items reducing under the same terminals. The messages are only rendered when
+ * asked for.
+ *
+ * @param reduce the completed item
+ * @param other the other completed item of a reduce/reduce conflict, null for a shift/reduce one
+ * @param terminals the terminals under which the conflict happens
+ */
+public record Conflict(
+        LalrState state,
+        LalrItem reduce,
+        LalrItem other,
+        TerminalSet terminals
+) {
+
+    public boolean isShiftReduce() {
+        return other == null;
+    }
+
+    /**
+     * The count of conflicts this one counts for against the expected conflicts: one by terminal for a shift/reduce
+     * conflict, one for a reduce/reduce conflict.
+     */
+    public int count() {
+        return isShiftReduce() ? terminals.size() : 1;
+    }
+
+    /**
+     * The warnings reporting the conflict, one by terminal for a shift/reduce conflict.
+     */
+    public List<String> messages() {
+        if (!isShiftReduce()) {
+            return List.of(reduceReduceMessage());
+        }
+        final List<String> messages = new ArrayList<>(terminals.size());
+        for (int t = terminals.next(0); t >= 0; t = terminals.next(t + 1)) {
+            messages.add(shiftReduceMessage(t));
+        }
+        return messages;
+    }
+
+    private String shiftReduceMessage(int conflictSymbol) {
+        final StringBuilder message = new StringBuilder()
+                .append("*** Shift/Reduce conflict found in state #").append(state.id)
+                .append("\n" + "  between ").append(reduce).append("\n");
+        /* the items that shift under our conflict symbol */
+        for (LalrItem itm : state.items.values()) {
+            if (!itm.dotAtEnd && itm.symbolAfterDot instanceof Terminal && itm.symbolAfterDot.id == conflictSymbol) {
+                message.append("  and     ").append(itm).append('\n');
+            }
+        }
+        return message.append("  under symbol ").append(state.context.terminal(conflictSymbol).name)
+                .append("\n  Resolved in favor of shifting.\n")
+                .toString();
+    }
+
+    private String reduceReduceMessage() {
+        return "*** Reduce/Reduce conflict found in state #" + state.id
+                + "\n  between " + reduce
+                + "\n  and     " + other
+                + "\n  under symbols: " + terminals.toString(state.context)
+                + "\n  Resolved in favor of "
+                + (reduce.production.id < other.production.id ? "the first production.\n" : "the second production.\n");
+    }
+}
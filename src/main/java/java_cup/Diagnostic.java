@@ -0,0 +1,19 @@
+package java_cup;
+
+/**
+ * An error or a warning reported while generating a parser.
+ */
+public record Diagnostic(
+        Severity severity,
+        String message
+) {
+
+    public enum Severity {
+        ERROR, WARNING
+    }
+
+    @Override
+    public String toString() {
+        return (severity == Severity.ERROR ? "Error : " : "Warning : ") + message;
+    }
+}
@@ -0,0 +1,261 @@
+package java_cup;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures the phases of one parser generation: the wall time, the bytes allocated by the generating thread and the
+ * workers it hands tasks to, and the peak heap of every phase. Each phase is also committed as a
+ * {@code java_cup.GeneratorPhase} JFR event, and the phases together with the counts of the generated machine can be
+ * written as a JSON report.
+ * <p>
+ * The heap is the one of the whole JVM. A phase that starts while no other generation is in a phase resets the
+ * peaks of the heap pools, and the other generations leave them as they are until it ends. A phase that starts
+ * while others are running only samples the heap when it starts and ends. Either way the phases that ran at the same
+ * time as others are marked {@code concurrent}, their peak also holds what the others allocated.
+ */
+public class GeneratorStats {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final List<MemoryPoolMXBean> HEAP_POOLS = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP && pool.isValid())
+            .toList();
+    /**
+     * The phases of all the generations of the JVM in progress, and started so far.
+     */
+    private static final AtomicInteger OPEN_PHASES = new AtomicInteger();
+    private static final AtomicLong STARTED_PHASES = new AtomicLong();
+
+    private final List<Phase> phases = new ArrayList<>();
+    private final Map<String, Long> counts = new LinkedHashMap<>();
+
+    private String current;
+    private long startNanos;
+    private long startAllocated;
+    private Thread owner;
+    private final LongAdder workerAllocated = new LongAdder();
+    private boolean sharedHeap;
+    private long startedPhases;
+    private long startHeap;
+    private PhaseEvent event;
+
+    /**
+     * Ends the current phase, if any, and starts the next one.
+     *
+     * @param name the name of the phase
+     */
+    public void phase(String name) {
+        end();
+        current = name;
+        sharedHeap = OPEN_PHASES.incrementAndGet() > 1;
+        startedPhases = STARTED_PHASES.incrementAndGet();
+        if (!sharedHeap) {
+            for (MemoryPoolMXBean pool : HEAP_POOLS) {
+                pool.resetPeakUsage();
+            }
+        }
+        startHeap = usedHeap();
+        event = new PhaseEvent();
+        event.begin();
+        owner = Thread.currentThread();
+        workerAllocated.reset();
+        startAllocated = allocatedBytes();
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Ends the current phase, if any.
+     */
+    public void end() {
+        if (current == null) {
+            return;
+        }
+        final long nanos = System.nanoTime() - startNanos;
+        final long allocated = startAllocated < 0 ? -1 : allocatedBytes() - startAllocated + workerAllocated.sum();
+        long peakHeap = 0;
+        if (sharedHeap) {
+            peakHeap = Math.max(startHeap, usedHeap());
+        } else {
+            for (MemoryPoolMXBean pool : HEAP_POOLS) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+        }
+        final boolean concurrent = sharedHeap || STARTED_PHASES.get() != startedPhases;
+        OPEN_PHASES.decrementAndGet();
+        final Phase phase = new Phase(current, nanos, allocated, peakHeap, concurrent);
+        phases.add(phase);
+        current = null;
+        owner = null;
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.phase = phase.name();
+            event.allocated = phase.allocatedBytes();
+            event.peakHeap = phase.peakHeapBytes();
+            event.concurrent = phase.concurrent();
+            event.commit();
+        }
+        event = null;
+    }
+
+    /**
+     * Runs a task of the current phase that may run on another thread, like the ones of a parallel stream, counting
+     * what it allocates with the phase. The tasks run by the thread of the phase are counted with it already.
+     */
+    public void worker(Runnable task) {
+        if (owner == null || Thread.currentThread() == owner) {
+            task.run();
+            return;
+        }
+        final long before = allocatedBytes();
+        try {
+            task.run();
+        } finally {
+            if (before >= 0) {
+                workerAllocated.add(allocatedBytes() - before);
+            }
+        }
+    }
+
+    /**
+     * Records a count of the generated machine, like the count of states.
+     */
+    public void count(String name, long value) {
+        counts.put(name, value);
+    }
+
+    public List<Phase> phases() {
+        return phases;
+    }
+
+    public Map<String, Long> counts() {
+        return counts;
+    }
+
+    /**
+     * Writes the phases and the counts as JSON.
+     */
+    public void write(File file) throws IOException {
+        try (var out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            out.println("{");
+            out.println("  \"version\": " + quote(Main.TITLE) + ",");
+            out.println("  \"phases\": [");
+            for (int i = 0; i < phases.size(); i++) {
+                final Phase phase = phases.get(i);
+                out.print("    {\"name\": " + quote(phase.name())
+                        + ", \"nanos\": " + phase.nanos()
+                        + ", \"allocatedBytes\": " + phase.allocatedBytes()
+                        + ", \"peakHeapBytes\": " + phase.peakHeapBytes()
+                        + ", \"concurrent\": " + phase.concurrent() + "}");
+                out.println(i + 1 < phases.size() ? "," : "");
+            }
+            out.println("  ],");
+            out.println("  \"counts\": {");
+            int i = 0;
+            for (Map.Entry<String, Long> entry : counts.entrySet()) {
+                out.print("    " + quote(entry.getKey()) + ": " + entry.getValue());
+                out.println(++i < counts.size() ? "," : "");
+            }
+            out.println("  }");
+            out.println("}");
+        }
+    }
+
+    private static String quote(String s) {
+        final StringBuilder buffer = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            switch (c) {
+                case '"' -> buffer.append("\\\"");
+                case '\\' -> buffer.append("\\\\");
+                case '\n' -> buffer.append("\\n");
+                case '\r' -> buffer.append("\\r");
+                case '\t' -> buffer.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        buffer.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        buffer.append(c);
+                    }
+                }
+            }
+        }
+        return buffer.append('"').toString();
+    }
+
+    private static long usedHeap() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : HEAP_POOLS) {
+            used += pool.getUsage().getUsed();
+        }
+        return used;
+    }
+
+    /**
+     * The bytes allocated by the current thread so far, -1 if the JVM does not tell.
+     */
+    private static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean threads && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    /**
+     * One measured phase. {@code allocatedBytes} is -1 if the JVM does not measure allocations.
+     *
+     * @param concurrent whether other generations were in a phase at the same time, see {@link GeneratorStats}
+     */
+    public record Phase(
+            String name,
+            long nanos,
+            long allocatedBytes,
+            long peakHeapBytes,
+            boolean concurrent
+    ) {
+    }
+
+    @Name("java_cup.GeneratorPhase")
+    @Label("Generator Phase")
+    @Category("java_cup")
+    @Description("One phase of a parser generation")
+    static final class PhaseEvent extends Event {
+
+        @Label("Phase")
+        String phase;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocated;
+
+        @Label("Peak Heap")
+        @DataAmount
+        long peakHeap;
+
+        @Label("Concurrent")
+        @Description("Other generations were in a phase at the same time, the peak heap also holds their data")
+        boolean concurrent;
+    }
+}
@@ -0,0 +1,183 @@
+package java_cup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Generates the grammars of a manifest in one JVM, a bounded count of them at once.
+ * <p>
+ * Every line of the manifest is the command line of one grammar, its options followed by its grammar file, like
+ * {@code -destdir out/a -parser AParser a.cup}. Blank lines and lines starting with {@code #} are skipped, and
+ * arguments with spaces may be quoted with {@code "}. Paths are relative to the working directory, like on the command
+ * line. The log of every grammar is printed as a whole once it is generated, followed by a report of the timings of
+ * the batch.
+ */
+final class GrammarBatch {
+
+    private final List<Main> entries;
+    private final int threads;
+
+    private GrammarBatch(List<Main> entries, int threads) {
+        this.entries = entries;
+        this.threads = threads;
+    }
+
+    static GrammarBatch read(File manifest, int threads) throws IOException {
+        final List<Main> entries = new ArrayList<>();
+        for (String line : Files.readAllLines(manifest.toPath())) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            entries.add(Main.of(split(line)));
+        }
+        return new GrammarBatch(entries, threads);
+    }
+
+    /**
+     * Splits a line at spaces, except inside double quotes.
+     */
+    static String[] split(String line) {
+        final List<String> args = new ArrayList<>();
+        final StringBuilder arg = new StringBuilder();
+        boolean quoted = false;
+        boolean pending = false;
+        for (int i = 0; i < line.length(); i++) {
+            final char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+                pending = true;
+            } else if (!quoted && Character.isWhitespace(c)) {
+                if (pending) {
+                    args.add(arg.toString());
+                    arg.setLength(0);
+                    pending = false;
+                }
+            } else {
+                arg.append(c);
+                pending = true;
+            }
+        }
+        if (pending) {
+            args.add(arg.toString());
+        }
+        return args.toArray(new String[0]);
+    }
+
+    /**
+     * The outcome of one grammar, the context is null if the generation failed.
+     */
+    private record Outcome(
+            int index,
+            GrammarContext context,
+            Exception failure,
+            long nanos,
+            String log
+    ) {
+
+        boolean ok() {
+            return context != null && !context.hasErrors();
+        }
+    }
+
+    /**
+     * Generates all the grammars and prints their logs and the report.
+     *
+     * @return true if all of them are generated without errors
+     */
+    boolean run(PrintStream out) {
+        final long start = System.nanoTime();
+        final int poolSize = Math.max(1, Math.min(threads, entries.size()));
+        final ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+        final CompletionService<Outcome> completion = new ExecutorCompletionService<>(executor);
+        for (int i = 0; i < entries.size(); i++) {
+            final int index = i;
+            completion.submit(() -> generate(index));
+        }
+
+        final Outcome[] outcomes = new Outcome[entries.size()];
+        try {
+            for (int done = 0; done < outcomes.length; done++) {
+                final Outcome outcome = completion.take().get();
+                outcomes[outcome.index()] = outcome;
+                out.println("===== " + entries.get(outcome.index()).input() + " =====");
+                out.print(outcome.log());
+                if (outcome.failure() != null) {
+                    out.println("Error : " + outcome.failure());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InternalException("Batch interrupted");
+        } catch (ExecutionException e) {
+            throw new InternalException("Batch failed: " + e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        report(out, outcomes, System.nanoTime() - start, poolSize);
+        for (Outcome outcome : outcomes) {
+            if (!outcome.ok()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Outcome generate(int index) {
+        final ByteArrayOutputStream log = new ByteArrayOutputStream();
+        final Main entry = entries.get(index);
+        GrammarContext context = null;
+        Exception failure = null;
+        final long start = System.nanoTime();
+        try (PrintStream logStream = new PrintStream(log, true, StandardCharsets.UTF_8)) {
+            context = entry.log(logStream).run();
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+        }
+        return new Outcome(index, context, failure, System.nanoTime() - start, log.toString(StandardCharsets.UTF_8));
+    }
+
+    private void report(PrintStream out, Outcome[] outcomes, long wallNanos, int poolSize) {
+        long totalNanos = 0;
+        int failed = 0;
+        int errors = 0;
+        int warnings = 0;
+        out.println("------- " + Main.TITLE + " Batch Summary -------");
+        out.println(String.format("  %10s %8s %7s %9s  %s", "ms", "states", "errors", "warnings", "grammar"));
+        for (Outcome outcome : outcomes) {
+            totalNanos += outcome.nanos();
+            final GrammarContext context = outcome.context();
+            if (!outcome.ok()) {
+                failed++;
+            }
+            if (context != null) {
+                errors += context.errorCount();
+                warnings += context.warningCount();
+            }
+            out.println(String.format("  %10.1f %8s %7s %9s  %s",
+                    outcome.nanos() / 1e6,
+                    context != null ? context.stats().counts().getOrDefault("states", 0L) : "-",
+                    context != null ? context.errorCount() : "failed",
+                    context != null ? context.warningCount() : "-",
+                    entries.get(outcome.index()).input()));
+        }
+        out.println(String.format("  %d grammars on %d threads in %.1f ms, %.1f ms summed (%.1fx)",
+                outcomes.length, poolSize, wallNanos / 1e6, totalNanos / 1e6,
+                wallNanos == 0 ? 0 : (double) totalNanos / wallNanos));
+        out.println("  " + errors + " errors and " + warnings + " warnings, "
+                + failed + " grammars not generated.");
+        out.println("---------------------------------------------------- ");
+    }
+}
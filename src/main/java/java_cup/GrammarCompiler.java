@@ -0,0 +1,222 @@
+package java_cup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Generates parsers from grammars, the embeddable form of {@link Main}.
+ * <p>
+ * The options are set once, then every call of {@code compile} runs on a {@link GrammarContext} of its own and
+ * returns it, holding the diagnostics, the stats and the generated machine. A compiler may run compilations
+ * concurrently, as long as its options are not changed meanwhile.
+ * <pre>
+ *   GrammarContext result = new GrammarCompiler()
+ *           .parserClassName("MyParser")
+ *           .compile(Path.of("my.cup"), OutputSink.directories(srcDir, resDir));
+ *   if (result.hasErrors()) {
+ *       result.diagnostics().forEach(System.err::println);
+ *   }
+ * </pre>
+ */
+public class GrammarCompiler {
+
+    String parserClassName = "Parser";
+    String tokensClassName = "Tokens";
+    String parserCode;
+    String actionExceptionClassName;
+    int expectConflicts = 0;
+    boolean dumpStates = false;
+    boolean dumpTables = false;
+    boolean dumpGrammar = false;
+    boolean profileGrammar = false;
+    boolean streamTables = false;
+    boolean minimizeStates = false;
+    /**
+     * Budgets of the state machine, zero for no limit.
+     */
+    int maxStates = 0;
+    long maxItems = 0;
+    long maxHeapBytes = 0;
+    int maxConflictMessages = 20;
+    long spillHeapBytes = -1;
+    File spillDir;
+    File cacheDir;
+    TableCache tableCache;
+    PrintStream log = new PrintStream(OutputStream.nullOutputStream());
+
+    public GrammarCompiler parserClassName(String name) {
+        this.parserClassName = name;
+        return this;
+    }
+
+    public GrammarCompiler tokensClassName(String name) {
+        this.tokensClassName = name;
+        return this;
+    }
+
+    /**
+     * Code to be included in the parser class.
+     */
+    public GrammarCompiler parserCode(String code) {
+        this.parserCode = code;
+        return this;
+    }
+
+    /**
+     * The exception the actions may throw, declared by the generated {@code doAction}.
+     */
+    public GrammarCompiler actionExceptionClassName(String name) {
+        this.actionExceptionClassName = name;
+        return this;
+    }
+
+    public GrammarCompiler expectConflicts(int count) {
+        this.expectConflicts = count;
+        return this;
+    }
+
+    public GrammarCompiler dumpStates(boolean dump) {
+        this.dumpStates = dump;
+        return this;
+    }
+
+    public GrammarCompiler dumpTables(boolean dump) {
+        this.dumpTables = dump;
+        return this;
+    }
+
+    public GrammarCompiler dumpGrammar(boolean dump) {
+        this.dumpGrammar = dump;
+        return this;
+    }
+
+    /**
+     * Reports the states, items and table cells by rule and non terminal to the log.
+     */
+    public GrammarCompiler profileGrammar(boolean profile) {
+        this.profileGrammar = profile;
+        return this;
+    }
+
+    /**
+     * Compresses the tables state by state while they are filled in, letting go of the items and lookaheads of every
+     * state without conflicts once its rows are done, instead of building the dense tables first. The dumps and the
+     * profile need the whole state machine and the dense tables, they turn it off.
+     */
+    public GrammarCompiler streamTables(boolean stream) {
+        this.streamTables = stream;
+        return this;
+    }
+
+    /**
+     * Merges the states whose rows and successors are the same once the tables are filled in, which shrinks the
+     * tables of the grammars with states reached along different paths, like the ones of inner actions and options.
+     * The dumps and the profile describe the machine as built, they turn it off.
+     */
+    public GrammarCompiler minimizeStates(boolean minimize) {
+        this.minimizeStates = minimize;
+        return this;
+    }
+
+    /**
+     * Aborts if the state machine gets more than the given count of states, zero for no limit.
+     */
+    public GrammarCompiler maxStates(int count) {
+        this.maxStates = count;
+        return this;
+    }
+
+    /**
+     * Aborts if the state machine gets more than the given count of items, zero for no limit.
+     */
+    public GrammarCompiler maxItems(long count) {
+        this.maxItems = count;
+        return this;
+    }
+
+    /**
+     * Aborts if the heap used while building the state machine exceeds the given bytes, zero for no limit. The heap
+     * is the one of the whole JVM, shared by concurrent compilations.
+     */
+    public GrammarCompiler maxHeapBytes(long bytes) {
+        this.maxHeapBytes = bytes;
+        return this;
+    }
+
+    /**
+     * Keeps the lookaheads of the items on the heap up to the given bytes, then in a memory-mapped scratch file,
+     * negative to keep all of them on the heap as they are. For the grammars whose state machine does not fit the
+     * heap otherwise.
+     */
+    public GrammarCompiler spillLookaheads(long heapBytes) {
+        this.spillHeapBytes = heapBytes;
+        return this;
+    }
+
+    /**
+     * The directory of the scratch files of the spilled lookaheads, null for the temporary directory.
+     */
+    public GrammarCompiler spillDir(File dir) {
+        this.spillDir = dir;
+        return this;
+    }
+
+    /**
+     * Reports the conflicts with one warning each up to the given count, then one warning for all the others, zero
+     * to report all of them. The records of all the conflicts are in {@link GrammarContext#conflicts()} anyway.
+     */
+    public GrammarCompiler maxConflictMessages(int count) {
+        this.maxConflictMessages = count;
+        return this;
+    }
+
+    /**
+     * Caches the tables in the given directory, by the structural skeleton of the grammar, so a grammar whose
+     * changes are limited to the action code and the types reuses them, null for no cache. The cache is bypassed if
+     * the state machine or the tables are dumped, or the grammar profiled.
+     */
+    public GrammarCompiler cacheDir(File dir) {
+        this.cacheDir = dir;
+        this.tableCache = dir != null ? new TableCache(dir) : null;
+        return this;
+    }
+
+    /**
+     * Shares the given cache, of the same directory as this compiler if it has one.
+     */
+    GrammarCompiler tableCache(TableCache cache) {
+        this.tableCache = cache;
+        return this;
+    }
+
+    /**
+     * Where the progress, the diagnostics, the dumps and the summary are printed, nowhere by default.
+     */
+    public GrammarCompiler log(PrintStream log) {
+        this.log = log;
+        return this;
+    }
+
+    public GrammarContext compile(Path grammar, OutputSink sink) throws IOException {
+        try (Reader in = Files.newBufferedReader(grammar)) {
+            return compile(in, sink);
+        }
+    }
+
+    /**
+     * Generates the parser of the grammar read from the given reader, unless the grammar has errors.
+     *
+     * @return the context of the compilation
+     * @throws IOException if reading the grammar or writing to the sink fails
+     */
+    public GrammarContext compile(Reader grammar, OutputSink sink) throws IOException {
+        final GrammarContext context = new GrammarContext(this, sink);
+        context.run(grammar);
+        return context;
+    }
+}
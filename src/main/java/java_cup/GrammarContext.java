@@ -0,0 +1,1060 @@
+package java_cup;
+
+import java_cup.core.Parser;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * The state of one parser generation: the symbols and productions of the grammar, the state machine, the tables and
+ * the diagnostics. Every run of a {@link GrammarCompiler} works on a context of its own, so grammars may be compiled
+ * concurrently, each context being used by a single thread.
+ */
+public class GrammarContext {
+
+    static final int[] EMPTY_INT_ARRAY = new int[0];
+
+    protected final GrammarCompiler options;
+    protected final OutputSink sink;
+    protected final PrintStream log;
+    protected final GeneratorStats stats = new GeneratorStats();
+
+    public final List<Terminal> terminals = new ArrayList<>();
+    public final List<NonTerminal> nonTerminals = new ArrayList<>();
+    public final List<Production> productions = new ArrayList<>();
+    protected final Map<LalrItemSet, LalrState> states = new HashMap<>();
+
+    public final Terminal EOF;
+    public final Terminal ERROR;
+
+    protected final List<String> imports = new ArrayList<>();
+    protected String packageName;
+    protected Production startProduction;
+
+    protected LalrState startState;
+    protected int[][] actionTable;
+    /**
+     * The action table compressed like in the emitted data, when the tables are streamed instead of filled in.
+     */
+    protected int[][] actionRows;
+    /**
+     * The class of every terminal the action rows are indexed by, see {@link TerminalClasses}. Null if every terminal
+     * is a class of its own, the rows are indexed by terminal then.
+     */
+    private int[] terminalClasses;
+    /**
+     * The reduce-goto table, by state the pairs of {@link LalrState#gotoRow()}.
+     */
+    protected int[][] reduceTable;
+
+    private final List<Diagnostic> diagnostics = new ArrayList<>();
+    private int errors = 0;
+    private int warnings = 0;
+    private boolean written = false;
+    /**
+     * The tables reused from the cache, null if they were built.
+     */
+    private TableCache.Entry cached;
+
+    protected int unusedTermCount = 0;
+    protected int unusedNonTermCount = 0;
+    protected int notReducedCount = 0;
+    /**
+     * Where the lookaheads of the items of the states are kept, null to keep them on the heap as they are.
+     */
+    private LookaheadStore lookaheads;
+    private int builtStates = 0;
+    private int minimizedStates = 0;
+    private int classCount = 0;
+    private long builtItems = 0;
+    private long actionEntries = 0;
+    protected int conflictCount = 0;
+    private final List<Conflict> conflicts = new ArrayList<>();
+    private int shownConflicts = 0;
+    private int hiddenConflicts = 0;
+
+    GrammarContext(GrammarCompiler options, OutputSink sink) {
+        this.options = options;
+        this.sink = sink;
+        this.log = options.log;
+        EOF = createTerminal("EOF", null);
+        ERROR = createTerminal("ERROR", null);
+        ERROR.use();
+    }
+
+    public Terminal createTerminal(String name, String type) {
+        final Terminal terminal = new Terminal(terminals.size(), name, type);
+        terminals.add(terminal);
+        return terminal;
+    }
+
+    public NonTerminal createNonTerminal(String name, String type) {
+        final NonTerminal nonTerminal = new NonTerminal(nonTerminals.size(), name, type);
+        nonTerminals.add(nonTerminal);
+        return nonTerminal;
+    }
+
+    public Production createProduction(NonTerminal lhs, Object[] rhs) {
+        return Production.create(this, lhs, rhs);
+    }
+
+    LalrState createState(LalrItemSet items) {
+        if (states.containsKey(items)) {
+            throw new InternalException("Attempt to construct a duplicate LALR state");
+        }
+        if (lookaheads != null) {
+            for (LalrItem item : items.values()) {
+                item.storeLookahead(lookaheads);
+            }
+        }
+        final LalrState state = new LalrState(this, builtStates++, items);
+        states.put(items, state);
+        return state;
+    }
+
+    public Terminal terminal(int id) {
+        return terminals.get(id);
+    }
+
+    public Collection<LalrState> states() {
+        return states.values();
+    }
+
+    public Production startProduction() {
+        return startProduction;
+    }
+
+    /**
+     * Sets the start production, once, from the first rule of the grammar.
+     */
+    public void setStartProduction(Production startProduction) {
+        this.startProduction = startProduction;
+    }
+
+    public void setPackageName(String packageName) {
+        this.packageName = packageName;
+    }
+
+    public void addImport(String name) {
+        imports.add(name);
+    }
+
+    public List<Diagnostic> diagnostics() {
+        return Collections.unmodifiableList(diagnostics);
+    }
+
+    public int errorCount() {
+        return errors;
+    }
+
+    public int warningCount() {
+        return warnings;
+    }
+
+    public boolean hasErrors() {
+        return errors != 0;
+    }
+
+    /**
+     * Whether the parser and its tables were written to the sink.
+     */
+    public boolean written() {
+        return written;
+    }
+
+    /**
+     * Whether the tables were reused from the cache instead of being built.
+     */
+    public boolean reusedTables() {
+        return cached != null;
+    }
+
+    public GeneratorStats stats() {
+        return stats;
+    }
+
+    public LalrState startState() {
+        return startState;
+    }
+
+    public int[][] actionTable() {
+        return actionTable;
+    }
+
+    /**
+     * Parses the grammar, generates the parser, prints the requested dumps and the summary to the log, and counts
+     * the generated machine in the stats.
+     */
+    void run(Reader in) throws IOException {
+        log.println("Parsing...");
+        stats.phase("parse");
+        try {
+            parse(in);
+            written = generate();
+        } catch (InternalException e) {
+            error(e.getMessage());
+        } finally {
+            stats.end();
+        }
+
+        if (options.dumpGrammar) {
+            dumpGrammar();
+        }
+        if (options.dumpStates) {
+            dumpMachine();
+        }
+        if (options.dumpTables && written) {
+            dumpTables();
+        }
+        if (options.profileGrammar && !states.isEmpty()) {
+            log.println(GrammarProfile.of(this, actionTable, reduceTable).report(20));
+        }
+
+        printSummary();
+        countStats();
+        if (lookaheads != null) {
+            lookaheads.close();
+        }
+    }
+
+    void parse(Reader in) throws IOException {
+        try {
+            new Parser().parse(this, in);
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new InternalException("Unable to parse the grammar: " + e);
+        }
+    }
+
+    /**
+     * Checks the parsed grammar, builds the tables and writes the parser if there are no errors.
+     *
+     * @return true if the parser is written
+     */
+    boolean generate() throws IOException {
+        if (errors != 0) {
+            return false;
+        }
+
+        log.println("Compiling actions...");
+        stats.phase("actions");
+        compileActions();
+
+        log.println("Checking...");
+        stats.phase("check");
+        checkUnused();
+
+        // the dumps and the profile need the state machine, which is not cached
+        final TableCache cache = !options.dumpStates && !options.dumpTables && !options.profileGrammar
+                ? options.tableCache : null;
+        final String key = cache != null ? TableCache.key(this) : null;
+        if (cache != null) {
+            cached = cache.load(key);
+        }
+
+        final TableCache.Entry tables;
+        if (cached != null) {
+            log.println("Reusing cached tables...");
+            tables = cached;
+            conflictCount = tables.conflicts();
+            notReducedCount = tables.notReduced();
+            tables.warnings().forEach(this::warning);
+            checkConflictCount();
+        } else {
+            log.println("Building tables...");
+            final int reportedBefore = diagnostics.size();
+            try {
+                buildParser();
+            } catch (BudgetExceededException e) {
+                error(e.getMessage());
+                return false;
+            }
+            tables = errors != 0 ? null : tables(diagnostics.subList(reportedBefore, diagnostics.size()).stream()
+                    .map(Diagnostic::message)
+                    .toList());
+        }
+
+        if (errors != 0) {
+            return false;
+        }
+
+        log.println("Writing...");
+        stats.phase("emit");
+        emit(tables);
+        if (cache != null && cached == null) {
+            try {
+                cache.store(key, tables);
+            } catch (IOException e) {
+                warning("Unable to write the tables to the cache \"" + options.cacheDir + "\": " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Serializes the filled in tables.
+     *
+     * @param warnings the warnings building them reported
+     */
+    TableCache.Entry tables(List<String> warnings) {
+        return new TableCache.Entry(stateCount(), conflictCount, notReducedCount, warnings,
+                serialize(narrow(productionData())), serialize(narrow(actionData())), serialize(narrow(reduceData())),
+                terminalClasses != null ? serialize(narrow(terminalClasses)) : null);
+    }
+
+    void emit() throws IOException {
+        emit(tables(List.of()));
+    }
+
+    void emit(TableCache.Entry tables) throws IOException {
+        writeResource("Production", tables.productionData());
+        writeResource("Action", tables.actionData());
+        writeResource("Reduce", tables.reduceData());
+        if (tables.classData() != null) {
+            writeResource("Class", tables.classData());
+        } else {
+            // a class table left by a previous generation would be loaded with the new tables
+            sink.deleteResource(options.parserClassName + "$Class.data");
+        }
+
+        try (var parserWriter = new PrintWriter(new BufferedWriter(
+                sink.openSource(options.parserClassName + ".java"), 4096));
+             var symbolWriter = new PrintWriter(new BufferedWriter(
+                     sink.openSource(options.tokensClassName + ".java"), 4096));
+        ) {
+            emitTokens(symbolWriter);
+            emitParser(parserWriter);
+        }
+    }
+
+    /**
+     * Checks the state machine built so far against the budgets.
+     *
+     * @param items the count of items of the states built so far
+     * @throws BudgetExceededException if one is exceeded
+     */
+    void checkBudget(long items) {
+        final int count = states.size();
+        String exceeded = null;
+        if (options.maxStates > 0 && count > options.maxStates) {
+            exceeded = "more than " + options.maxStates + " states";
+        } else if (options.maxItems > 0 && items > options.maxItems) {
+            exceeded = "more than " + options.maxItems + " items";
+        } else if (options.maxHeapBytes > 0 && (count & 63) == 0) {
+            final Runtime runtime = Runtime.getRuntime();
+            final long used = runtime.totalMemory() - runtime.freeMemory();
+            if (used > options.maxHeapBytes) {
+                exceeded = (used >> 20) + " MB of heap used, more than " + (options.maxHeapBytes >> 20) + " MB";
+            }
+        }
+        if (exceeded != null) {
+            throw new BudgetExceededException("*** State machine budget exceeded, " + exceeded + " after "
+                    + count + " states and " + items + " items -- parser generation aborted\n"
+                    + GrammarProfile.of(this, null, null).topContributors(10));
+        }
+    }
+
+    protected void buildParser() {
+
+        log.println("  Computing non-terminal nullability...");
+        stats.phase("nullability");
+        computeNullability();
+
+        log.println("  Computing first sets...");
+        stats.phase("first sets");
+        computeFirstSets();
+
+        log.println("  Building state machine...");
+        stats.phase("state machine");
+        buildMachine();
+
+        if (lookaheads != null && lookaheads.file() != null) {
+            log.println("  Spilled " + (lookaheads.spilledBytes() >> 20) + " MB of lookaheads to \""
+                    + lookaheads.file() + "\"");
+        }
+
+        log.println("  Propagating lookaheads...");
+        stats.phase("lookaheads");
+        LalrState.propagateLookaheads(this);
+
+        log.println("  Filling in tables...");
+        stats.phase("table fill");
+        final Map<LalrState, TerminalSet> conflicts
+                = options.streamTables && !describesMachine() ? streamTables() : fillTables();
+
+        log.println("  Checking conflicts...");
+        stats.phase("conflicts");
+        conflicts.forEach(LalrState::report_conflicts);
+        if (hiddenConflicts != 0) {
+            warning("*** " + hiddenConflicts + " more conflicts not shown, use -conflict-messages all to show them");
+        }
+
+        log.println("  Checking productions...");
+        stats.phase("check productions");
+        checkReductions();
+
+        checkConflictCount();
+
+        if (options.minimizeStates && errors == 0 && !describesMachine()) {
+            log.println("  Minimizing states...");
+            stats.phase("minimize");
+            minimizeTables();
+        }
+
+        if (errors == 0) {
+            log.println("  Grouping terminals...");
+            stats.phase("terminal classes");
+            classifyTerminals();
+        }
+    }
+
+    /**
+     * Whether the state machine is dumped or profiled, which needs its items and its dense tables as built.
+     */
+    private boolean describesMachine() {
+        return options.dumpStates || options.dumpTables || options.profileGrammar;
+    }
+
+    /**
+     * Merges the states with the same rows and the same successors, see {@link StateMinimizer}.
+     */
+    void minimizeTables() {
+        final int[][] actions = actionData();
+        final long before = serialize(narrow(actions)).length + serialize(narrow(reduceData())).length;
+        final StateMinimizer.Result minimized = StateMinimizer.minimize(actions, reduceTable,
+                StateMinimizer.sameReductions(productions));
+        actionTable = null;
+        actionRows = minimized.actions();
+        reduceTable = minimized.gotos();
+        minimizedStates = minimized.stateCount();
+        actionEntries = 0;
+        for (int[] row : actionRows) {
+            actionEntries += row.length / 2;
+        }
+        final long after = serialize(narrow(actionRows)).length + serialize(narrow(reduceData())).length;
+        log.println("  Merged " + builtStates + " states into " + minimizedStates
+                + ", the action and reduce tables from " + before + " to " + after + " bytes");
+    }
+
+    /**
+     * Groups the terminals with the same actions in every state and indexes the action rows by group, see
+     * {@link TerminalClasses}.
+     */
+    void classifyTerminals() {
+        final TerminalClasses.Result classified = TerminalClasses.classify(actionData(), terminals.size());
+        actionRows = classified.actions();
+        terminalClasses = classified.classes();
+        classCount = classified.classCount();
+        if (classCount == terminals.size()) {
+            // the classes are numbered in the order of their first terminal, so they are the terminals themselves
+            terminalClasses = null;
+        }
+        actionEntries = 0;
+        for (int[] row : actionRows) {
+            actionEntries += row.length / 2;
+        }
+        log.println("  Grouped " + terminals.size() + " terminals into " + classCount + " classes");
+    }
+
+    private void checkConflictCount() {
+        if (conflictCount > options.expectConflicts) {
+            error("*** More conflicts encountered than expected -- parser generation aborted");
+        }
+    }
+
+    void buildMachine() {
+        if (options.spillHeapBytes >= 0) {
+            lookaheads = new LookaheadStore(terminals.size(), options.spillHeapBytes, options.spillDir);
+        }
+        startState = LalrState.buildMachine(this);
+        if (startState.id != 0) {
+            throw new InternalException("Start state must be zero!");
+        }
+        builtItems = 0;
+        for (LalrState state : states()) {
+            builtItems += state.items.size();
+        }
+    }
+
+    /**
+     * Fills in the action and reduce tables.
+     *
+     * @return the terminals with unresolved conflicts by state
+     */
+    Map<LalrState, TerminalSet> fillTables() {
+        actionTable = new int[states.size()][terminals.size()];
+        reduceTable = new int[states.size()][];
+
+        // every state fills its own rows only, so the states are filled in parallel
+        final LalrState[] ordered = states().toArray(new LalrState[0]);
+        final TerminalSet[] conflictSets = new TerminalSet[ordered.length];
+        IntStream.range(0, ordered.length).parallel().forEach(i -> stats.worker(() -> {
+            final LalrState state = ordered[i];
+            reduceTable[state.id] = state.gotoRow();
+            conflictSets[i] = state.buildTableEntries(actionTable[state.id]);
+        }));
+
+        final Map<LalrState, TerminalSet> conflicts = new LinkedHashMap<>();
+        for (int i = 0; i < ordered.length; i++) {
+            if (conflictSets[i] != null) {
+                conflicts.put(ordered[i], conflictSets[i]);
+            }
+        }
+        return conflicts;
+    }
+
+    /**
+     * Fills in the tables state by state, compressing the action row of every state as soon as it is filled in, then
+     * lets go of the state machine: only the states with conflicts are kept, for their conflicts to be reported, and
+     * the dense action table is never built. The states are no longer listed by {@link #states()} afterwards.
+     *
+     * @return the terminals with unresolved conflicts by state
+     */
+    Map<LalrState, TerminalSet> streamTables() {
+        final LalrState[] ordered = states().toArray(new LalrState[0]);
+        states.clear();
+        actionRows = new int[ordered.length][];
+        reduceTable = new int[ordered.length][];
+
+        final TerminalSet[] conflictSets = new TerminalSet[ordered.length];
+        final LongAdder entries = new LongAdder();
+        IntStream.range(0, ordered.length).parallel().forEach(i -> stats.worker(() -> {
+            final LalrState state = ordered[i];
+            final int[] row = new int[terminals.size()];
+            conflictSets[i] = state.buildTableEntries(row);
+            for (int act : row) {
+                if (act != Action.ERROR) {
+                    entries.increment();
+                }
+            }
+            actionRows[state.id] = actionRow(row);
+            reduceTable[state.id] = state.gotoRow();
+            state.releaseLinks();
+            if (conflictSets[i] == null) {
+                ordered[i] = null;
+            }
+        }));
+        actionEntries = entries.sum();
+
+        final Map<LalrState, TerminalSet> conflicts = new LinkedHashMap<>();
+        for (int i = 0; i < ordered.length; i++) {
+            if (conflictSets[i] != null) {
+                conflicts.put(ordered[i], conflictSets[i]);
+            }
+        }
+        return conflicts;
+    }
+
+    /**
+     * Replaces the placeholders of the actions of the productions, in parallel, see {@link ActionTemplate}.
+     */
+    void compileActions() {
+        productions.parallelStream().forEach(prod -> stats.worker(prod::compileAction));
+    }
+
+    void checkUnused() {
+        for (Terminal term : terminals) {
+            if (!term.isUsed()) {
+                unusedTermCount++;
+                warning("Terminal \"" + term.name + "\" was declared but never used");
+            }
+        }
+        for (NonTerminal nt : nonTerminals) {
+            if (!nt.isUsed()) {
+                unusedTermCount++;
+                warning("Non terminal \"" + nt.name + "\" was declared but never used");
+            }
+        }
+    }
+
+    void checkReductions() {
+        if (actionTable != null) {
+            for (int[] actions : actionTable) {
+                for (int act : actions) {
+                    if (Action.isReduce(act)) {
+                        productions.get(Action.reduceProduction(act)).reductionUse();
+                    }
+                }
+            }
+        } else {
+            for (int[] actions : actionRows) {
+                for (int i = 1; i < actions.length; i += 2) {
+                    if (Action.isReduce(actions[i])) {
+                        productions.get(Action.reduceProduction(actions[i])).reductionUse();
+                    }
+                }
+            }
+        }
+        for (Production prod : productions) {
+            if (!prod.reductionUsed()) {
+                notReducedCount++;
+                warning("*** Production \"" + prod + "\" never reduced");
+            }
+        }
+    }
+
+    void computeNullability() {
+        boolean change;
+        do {
+            change = false;
+            for (NonTerminal nt : nonTerminals) {
+                if (!nt.nullable() && nt.looksNullable()) {
+                    change = true;
+                }
+            }
+        } while (change);
+
+        for (Production prod : productions) {
+            prod.checkNullable();
+        }
+    }
+
+    /**
+     * Compute first sets for each non-terminal. This assumes nullability has already computed.
+     */
+    void computeFirstSets() {
+        boolean change;
+        do {
+            change = false;
+            for (var nt : nonTerminals) {
+                for (Production prod : nt.productions) {
+                    var prodFirstSet = prod.checkFirstSet();
+                    if (!prodFirstSet.isSubOf(nt.firstSet)) {
+                        change = true;
+                        nt.firstSet.add(prodFirstSet);
+                    }
+                }
+            }
+        } while (change);
+    }
+
+    public void emitParser(PrintWriter out) {
+
+        emitPackage(out);
+
+        for (String item : imports) {
+            out.println("import " + item + ";");
+        }
+
+        out.println();
+        out.println("/**");
+        out.println(" * ");
+        out.println(" * @version " + Instant.ofEpochMilli(System.currentTimeMillis()));
+        out.println(" */");
+        out.println("public class " + options.parserClassName + " extends AbstractParser {");
+        out.println();
+
+        if (options.parserCode != null) {
+            out.println("    /* user supplied code */");
+            out.println();
+            out.println(options.parserCode);
+            out.println();
+        }
+
+        out.println("    ");
+        out.println("    @SuppressWarnings({");
+        out.println("            \"unchecked\",");
+        out.println("            \"DataFlowIssue\",");
+        out.println("            \"java:S1479\" // too many case clauses");
+        out.println("    })");
+        out.println("    final Object doAction(int actionId)" + (
+                options.actionExceptionClassName != null ? (" throws " + options.actionExceptionClassName) : "") + " {");
+
+        out.println("        var myStack = this.tokenStack;");
+        out.println();
+        out.println("        return switch (actionId) {");
+
+        productions.stream()
+                .sorted(Comparator.comparing(p -> p.id))
+                .collect(Collectors.groupingBy(
+                        p -> p.code,
+                        TreeMap::new,
+                        Collectors.toList()
+                ))
+                .forEach((code, prods) -> {
+                    var last = prods.size() - 1;
+                    for (int i = 0; i < prods.size(); i++) {
+                        var prod = prods.get(i);
+
+                        out.println((i == 0
+                                ? "            case "
+                                : "                 ")
+                                + prod.id
+                                + (i == last ? " ->" : ",  ")
+                                + " // " + prod);
+                    }
+                    emitParserActionCaseCode(out, code);
+                });
+
+        out.println("            default -> throw new RuntimeException(\"Invalid action id.\");");
+        out.println("        };");
+        out.println("    }");
+        if (productions.stream().noneMatch(Production::readsPositions)) {
+            // the results of the reductions are left without a position
+            out.println();
+            out.println("    @Override");
+            out.println("    boolean positions() {");
+            out.println("        return false;");
+            out.println("    }");
+        }
+        out.println("}");
+    }
+
+    private static void emitParserActionCaseCode(PrintWriter out, String code) {
+        if (code.startsWith("yield ")) {
+            out.println(code.substring("yield ".length()).trim());
+            return;
+        }
+
+        out.println("            {");
+        out.println(code);
+        out.println("            }");
+    }
+
+    public void emitTokens(PrintWriter out) {
+        emitPackage(out);
+        out.println("public interface " + options.tokensClassName + " {");
+        out.println();
+        out.println("    /* terminals */");
+        for (Terminal term : terminals) {
+            out.println("    int " + term.name + " = " + term.id + ";");
+        }
+        out.println();
+        out.println("    /* non terminals */");
+        for (NonTerminal nt : nonTerminals) {
+            out.println("    //int " + nt.name + " = " + nt.id + ";");
+        }
+        out.println("}");
+        out.println();
+    }
+
+    private void emitPackage(PrintWriter out) {
+        out.println();
+        out.println("//----------------------------------------------------");
+        out.println("// The following code was generated by " + Main.TITLE);
+        out.println("//----------------------------------------------------");
+        out.println();
+        if (packageName != null) {
+            out.println("package " + packageName + ";");
+            out.println();
+        }
+    }
+
+    private int[][] productionData() {
+        int[][] table = new int[productions.size()][2];
+        for (Production prod : productions) {
+            int i = prod.id;
+            // [lhs symbol, rhs size]
+            table[i][0] = prod.lhs.sym().id;
+            table[i][1] = prod.rhs.length;
+        }
+
+        return table;
+    }
+
+    private int[][] actionData() {
+        if (actionRows != null) {
+            return actionRows;
+        }
+        var action_table = new int[actionTable.length][];
+        for (int i = 0; i < actionTable.length; i++) {
+            action_table[i] = actionRow(actionTable[i]);
+        }
+        return action_table;
+    }
+
+    /**
+     * Compresses a row of the action table into the pairs of terminal and action the parser reads.
+     */
+    private static int[] actionRow(int[] row_under_term) {
+        int nentries = 0;
+        for (int act : row_under_term) {
+            // skip error entries, these are defaulted out, and non associative ones, they are syntax errors
+            if (act != Action.ERROR && act != Action.NONASSOC) {
+                nentries += 2;
+            }
+        }
+        if (nentries == 0) {
+            return EMPTY_INT_ARRAY;
+        }
+        final int[] entries = new int[nentries];
+        nentries = 0;
+        for (int j = 0; j < row_under_term.length; j++) {
+            final int act = row_under_term[j];
+            if (act != Action.ERROR && act != Action.NONASSOC) {
+                entries[nentries++] = j;
+                entries[nentries++] = act;
+            }
+        }
+        return entries;
+    }
+
+    private int[][] reduceData() {
+
+        final int[][] reduce_goto_table = new int[reduceTable.length][];
+        for (int i = 0; i < reduceTable.length; i++) {
+            final int[] row = reduceTable[i];
+            reduce_goto_table[i] = row.length != 0 ? row : null;
+        }
+
+        return reduce_goto_table;
+    }
+
+    /**
+     * The given table with the narrowest element type that holds all of its values, see {@link TableWidth}.
+     */
+    private static Object narrow(int[][] table) {
+        return TableWidth.of(table).narrow(table);
+    }
+
+    private static Object narrow(int[] values) {
+        return values != null ? TableWidth.of(new int[][]{values}).narrow(values) : null;
+    }
+
+    private static byte[] serialize(Object obj) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream o = new ObjectOutputStream(bytes)) {
+            o.writeObject(obj);
+        } catch (IOException e) {
+            throw new InternalException("Unable to serialize a table: " + e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void writeResource(String name, byte[] data) throws IOException {
+        try (OutputStream out = sink.openResource(options.parserClassName + "$" + name + ".data")) {
+            out.write(data);
+        }
+    }
+
+    /**
+     * Counts a conflict, and reports it unless the count of conflict messages is reached.
+     */
+    public void reportConflict(Conflict conflict) {
+        conflicts.add(conflict);
+        conflictCount += conflict.count();
+        final int limit = options.maxConflictMessages;
+        if (limit > 0 && shownConflicts >= limit) {
+            hiddenConflicts += conflict.count();
+            return;
+        }
+        for (String message : conflict.messages()) {
+            if (limit > 0 && shownConflicts >= limit) {
+                hiddenConflicts++;
+            } else {
+                shownConflicts++;
+                warning(message);
+            }
+        }
+    }
+
+    /**
+     * The conflicts found, in the order they were found.
+     */
+    public List<Conflict> conflicts() {
+        return Collections.unmodifiableList(conflicts);
+    }
+
+    private void countStats() {
+        stats.count("terminals", terminals.size());
+        stats.count("nonTerminals", nonTerminals.size());
+        stats.count("productions", productions.size());
+        stats.count("states", stateCount());
+        if (options.tableCache != null) {
+            stats.count("cachedTables", cached != null ? 1 : 0);
+        }
+        stats.count("items", builtItems);
+        if (actionTable != null) {
+            actionEntries = 0;
+            for (int[] actions : actionTable) {
+                for (int act : actions) {
+                    if (act != Action.ERROR) {
+                        actionEntries++;
+                    }
+                }
+            }
+        }
+        if (reduceTable != null) {
+            long gotoEntries = 0;
+            for (int[] row : reduceTable) {
+                gotoEntries += row.length / 2;
+            }
+            stats.count("actionCells", (long) reduceTable.length * terminals.size());
+            stats.count("actionEntries", actionEntries);
+            stats.count("gotoCells", (long) reduceTable.length * nonTerminals.size());
+            stats.count("gotoEntries", gotoEntries);
+        }
+        if (minimizedStates != 0) {
+            stats.count("minimizedStates", minimizedStates);
+        }
+        if (classCount != 0) {
+            stats.count("terminalClasses", classCount);
+        }
+        if (lookaheads != null) {
+            stats.count("lookaheadBytes", lookaheads.storedBytes());
+            stats.count("spilledBytes", lookaheads.spilledBytes());
+        }
+        stats.count("conflicts", conflictCount);
+        stats.count("errors", errors);
+        stats.count("warnings", warnings);
+    }
+
+    private void printSummary() {
+
+        log.println("------- " + Main.TITLE + " Parser Generation Summary -------");
+
+        log.println("  " + errors + " errors and " + warnings + " warnings");
+
+        log.print("  " + terminals.size() + " terminals, ");
+        log.print(nonTerminals.size() + " non-terminals, and ");
+        log.println(productions.size() + " productions declared, ");
+        log.println("  producing " + stateCount() + " unique parse states"
+                + (cached != null ? ", reused from the cache." : "."));
+
+        log.println("  " + unusedTermCount + " terminals declared but not used.");
+        log.println("  " + unusedNonTermCount + " non-terminals declared but not used.");
+        log.println("  " + notReducedCount + " productions never reduced.");
+        log.println("  " + conflictCount + " conflicts detected" + " (" + options.expectConflicts + " expected).");
+
+        if (written) {
+            log.println("  Code written to \"" + options.parserClassName + ".java\", and \""
+                    + options.tokensClassName + ".java\".");
+        } else {
+            log.println("  No code produced.");
+        }
+
+        log.println("---------------------------------------------------- ");
+    }
+
+    private int stateCount() {
+        return cached != null ? cached.states() : builtStates;
+    }
+
+    public void dumpGrammar() {
+        log.println("===== Terminals =====");
+        for (int i = 0; i < terminals.size(); i++) {
+            log.print("[" + i + ']' + terminal(i).name + ' ');
+            if ((i + 1) % 5 == 0) {
+                log.println();
+            }
+        }
+        log.println();
+        log.println();
+
+        log.println("===== Non terminals =====");
+        for (int i = 0; i < nonTerminals.size(); i++) {
+            log.print("[" + i + ']' + nonTerminals.get(i).name + ' ');
+            if ((i + 1) % 5 == 0) {
+                log.println();
+            }
+        }
+        log.println();
+        log.println();
+
+        log.println("===== Productions =====");
+        for (int i = 0; i < productions.size(); i++) {
+            Production prod = productions.get(i);
+            log.print("[" + i + "] " + ((prod.lhs).sym()).name + " ::= ");
+            for (ProductionItem rh : prod.rhs) {
+                log.print((rh.sym()).name + ' ');
+            }
+            log.println();
+        }
+        log.println();
+    }
+
+    public void dumpMachine() {
+        LalrState ordered[] = new LalrState[states.size()];
+
+        for (LalrState state : states()) {
+            ordered[(state.id)] = state;
+        }
+
+        log.println("===== Viable Prefix Recognizer =====");
+        for (int i = 0; i < states.size(); i++) {
+            if (ordered[i] == startState) {
+                log.print("START ");
+            }
+            log.println(ordered[i]);
+            log.println("-------------------");
+        }
+    }
+
+    public void dumpTables() {
+
+        log.println("-------- ACTION_TABLE -------- ");
+        for (int row = 0; row < actionTable.length; row++) {
+            log.println("From state #" + row);
+            int cnt = 0;
+            int[] actions = actionTable[row];
+            for (int col = 0; col < actions.length; col++) {
+                /* if the code is not an error print it */
+                if (actions[col] != Action.ERROR) {
+                    log.print(" [term " + col + ':' + Action.toString(actions[col]) + ']');
+                    /* end the line after the 2nd one */
+                    cnt++;
+                    if (cnt == 2) {
+                        log.println();
+                        cnt = 0;
+                    }
+                }
+            }
+            /* finish the line if we haven't just done that */
+            if (cnt != 0) {
+                log.println();
+            }
+        }
+        log.println("------------------------------");
+
+        log.println("-------- REDUCE_TABLE --------");
+        for (int row = 0; row < reduceTable.length; row++) {
+            log.println("From state #" + row);
+            int cnt = 0;
+            int[] gotos = reduceTable[row];
+            for (int i = 0; i < gotos.length; i += 2) {
+                log.print(" [non term " + gotos[i] + " -> state " + gotos[i + 1] + ']');
+                cnt++;
+                if (cnt == 3) {
+                    log.println();
+                    cnt = 0;
+                }
+            }
+            if (cnt != 0) {
+                log.println();
+            }
+        }
+        log.println("------------------------------");
+    }
+
+    public void error(String message) {
+        log.println("Error : " + message);
+        diagnostics.add(new Diagnostic(Diagnostic.Severity.ERROR, message));
+        errors++;
+    }
+
+    public void warning(String message) {
+        log.println("Warning : " + message);
+        diagnostics.add(new Diagnostic(Diagnostic.Severity.WARNING, message));
+        warnings++;
+    }
+}
@@ -0,0 +1,212 @@
+package java_cup;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stays up to generate grammars on request, keeping the JIT warm and the tables of the grammars generated so far in
+ * memory, so a grammar whose changes are limited to its action code is written again without building its tables.
+ * <p>
+ * The requests are lines of the input, the responses lines of the output, and the logs of the generations go to the
+ * log stream:
+ * <pre>
+ *   compile [options] file   generates the grammar, the options are the ones of the command line
+ *                            -&gt; done file ok|errors n ms
+ *   watch [options] file     generates the grammar, then again every time its file changes
+ *                            -&gt; watching file, then done ... after every generation
+ *   unwatch file             -&gt; unwatched file
+ *   quit                     -&gt; bye
+ * </pre>
+ * An invalid request gets an {@code error message} response. The daemon stops on {@code quit} or at the end of the
+ * input. The generations run one at a time, in the order they are requested.
+ */
+final class GrammarDaemon {
+
+    /**
+     * How long to wait for the events of one save to settle before generating.
+     */
+    private static final long SETTLE_MILLIS = 50;
+
+    private final BufferedReader in;
+    private final PrintStream out;
+    private final PrintStream log;
+    private final ExecutorService generator = Executors.newSingleThreadExecutor(r -> {
+        final Thread thread = new Thread(r, "java_cup-generator");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /**
+     * The caches of the tables by cache directory, the null directory for the memory only one.
+     */
+    private final Map<File, TableCache> caches = new HashMap<>();
+    /**
+     * The command lines of the watched grammars, by grammar file.
+     */
+    private final Map<Path, String[]> watched = new LinkedHashMap<>();
+    private final Map<Path, WatchKey> watchedDirs = new HashMap<>();
+    private WatchService watcher;
+
+    GrammarDaemon(InputStream in, PrintStream out, PrintStream log) {
+        this.in = new BufferedReader(new InputStreamReader(in));
+        this.out = out;
+        this.log = log;
+    }
+
+    void run() throws IOException {
+        watcher = FileSystems.getDefault().newWatchService();
+        final Thread watching = new Thread(this::watch, "java_cup-watcher");
+        watching.setDaemon(true);
+        watching.start();
+        respond("ready " + Main.TITLE);
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                if (line.equals("quit")) {
+                    break;
+                }
+                request(line);
+            }
+        } finally {
+            watcher.close();
+            generator.shutdown();
+            try {
+                generator.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond("bye");
+        }
+    }
+
+    private void request(String line) {
+        final String[] words = GrammarBatch.split(line);
+        final String command = words[0];
+        final String[] args = Arrays.copyOfRange(words, 1, words.length);
+        try {
+            switch (command) {
+                case "compile" -> {
+                    final Main entry = Main.of(args);
+                    generator.execute(() -> generate(entry));
+                }
+                case "watch" -> {
+                    final Main entry = Main.of(args);
+                    final Path file = entry.input().toPath().toAbsolutePath().normalize();
+                    register(file, args);
+                    respond("watching " + file);
+                    generator.execute(() -> generate(entry));
+                }
+                case "unwatch" -> {
+                    if (args.length != 1) {
+                        throw new IllegalArgumentException("unwatch takes the grammar file");
+                    }
+                    final Path file = Path.of(args[0]).toAbsolutePath().normalize();
+                    synchronized (watched) {
+                        if (watched.remove(file) == null) {
+                            throw new IllegalArgumentException("Not watching " + file);
+                        }
+                    }
+                    respond("unwatched " + file);
+                }
+                default -> throw new IllegalArgumentException("Unknown request \"" + command + "\"");
+            }
+        } catch (IllegalArgumentException | IOException e) {
+            respond("error " + e.getMessage());
+        }
+    }
+
+    private void register(Path file, String[] args) throws IOException {
+        final Path dir = file.getParent();
+        synchronized (watched) {
+            watched.put(file, args);
+            if (!watchedDirs.containsKey(dir)) {
+                watchedDirs.put(dir, dir.register(watcher,
+                        StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY));
+            }
+        }
+    }
+
+    /**
+     * Waits for changes of the watched grammars, and requests their generation once the changes of a save settle.
+     */
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                final Set<Path> changed = new LinkedHashSet<>();
+                do {
+                    final Path dir = (Path) key.watchable();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.context() instanceof Path name) {
+                            changed.add(dir.resolve(name).toAbsolutePath().normalize());
+                        }
+                    }
+                    key.reset();
+                } while ((key = watcher.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null);
+
+                for (Path file : changed) {
+                    final String[] args;
+                    synchronized (watched) {
+                        args = watched.get(file);
+                    }
+                    if (args != null) {
+                        try {
+                            final Main entry = Main.of(args);
+                            generator.execute(() -> generate(entry));
+                        } catch (IllegalArgumentException e) {
+                            respond("error " + e.getMessage());
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException | RejectedExecutionException e) {
+            // stopped
+        }
+    }
+
+    private void generate(Main entry) {
+        final GrammarCompiler compiler = entry.compiler();
+        compiler.log(log).tableCache(caches.computeIfAbsent(compiler.cacheDir, TableCache::new));
+        final long start = System.nanoTime();
+        String result;
+        try {
+            final GrammarContext context = entry.run();
+            result = context.hasErrors() ? "errors " + context.errorCount() : "ok";
+        } catch (IOException | RuntimeException e) {
+            result = "errors 1";
+            log.println("Error : " + e);
+        }
+        respond(String.format("done %s %s %.1f ms", entry.input(), result, (System.nanoTime() - start) / 1e6));
+    }
+
+    private void respond(String response) {
+        synchronized (out) {
+            out.println(response);
+            out.flush();
+        }
+    }
+}
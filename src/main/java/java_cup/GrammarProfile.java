@@ -0,0 +1,252 @@
+package java_cup;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Attributes the states, items and table cells of the state machine to the non terminals, to the kind of sugar that
+ * created them ({@code []} lists, {@code ?} options, inline productions and inner actions), and to the rules of the
+ * grammar they come from.
+ * <p>
+ * A state counts for the left hand sides of its kernel items, an item for the left hand side of its production. A
+ * reduce cell counts for the reduced non terminal, a shift or goto cell for the left hand sides of the items that
+ * move over its symbol.
+ */
+public class GrammarProfile {
+
+    public enum Kind {
+        USER, LIST, OPTIONAL, INLINE, ACTION, START
+    }
+
+    /**
+     * The counts of one non terminal, or of everything attributed to one kind or one rule.
+     */
+    public static final class Counts {
+
+        public final String name;
+        public int states;
+        public long items;
+        public long cells;
+
+        Counts(String name) {
+            this.name = name;
+        }
+
+        void add(Counts other) {
+            states += other.states;
+            items += other.items;
+            cells += other.cells;
+        }
+    }
+
+    private final GrammarContext context;
+    private final Counts total = new Counts("total");
+    private final Counts[] byNonTerminal;
+
+    private GrammarProfile(GrammarContext context) {
+        this.context = context;
+        byNonTerminal = new Counts[context.nonTerminals.size()];
+        for (NonTerminal nt : context.nonTerminals) {
+            byNonTerminal[nt.id] = new Counts(nt.name);
+        }
+    }
+
+    /**
+     * Profiles the states built so far, and the tables if they are filled in.
+     *
+     * @param actions the action table, or null
+     * @param gotos the reduce-goto table, or null
+     */
+    public static GrammarProfile of(GrammarContext context, int[][] actions, int[][] gotos) {
+        final GrammarProfile profile = new GrammarProfile(context);
+        final Set<NonTerminal> owners = new HashSet<>();
+        for (LalrState state : context.states()) {
+            profile.total.states++;
+            owners.clear();
+            for (LalrItem item : state.items.values()) {
+                final NonTerminal lhs = (NonTerminal) item.production.lhs.sym();
+                profile.total.items++;
+                profile.byNonTerminal[lhs.id].items++;
+                if (item.dotPos > 0 || item.production == context.startProduction) {
+                    owners.add(lhs);
+                }
+            }
+            for (NonTerminal owner : owners) {
+                profile.byNonTerminal[owner.id].states++;
+            }
+            if (actions != null && state.id < actions.length) {
+                profile.countCells(state, actions[state.id], gotos[state.id]);
+            }
+        }
+        return profile;
+    }
+
+    private void countCells(LalrState state, int[] actionRow, int[] gotoRow) {
+        // the left hand sides of the items moving over each symbol
+        final Map<symbol, Set<NonTerminal>> movers = new LinkedHashMap<>();
+        for (LalrItem item : state.items.values()) {
+            if (item.symbolAfterDot != null) {
+                movers.computeIfAbsent(item.symbolAfterDot, sym -> new HashSet<>())
+                        .add((NonTerminal) item.production.lhs.sym());
+            }
+        }
+        for (int t = 0; t < actionRow.length; t++) {
+            final int act = actionRow[t];
+            if (Action.isReduce(act)) {
+                total.cells++;
+                byNonTerminal[context.productions.get(Action.reduceProduction(act)).lhs.sym().id].cells++;
+            } else if (act != Action.ERROR) {
+                total.cells++;
+                countMovers(movers.get(context.terminal(t)));
+            }
+        }
+        for (int i = 0; i < gotoRow.length; i += 2) {
+            total.cells++;
+            countMovers(movers.get(context.nonTerminals.get(gotoRow[i])));
+        }
+    }
+
+    private void countMovers(Set<NonTerminal> lhses) {
+        if (lhses != null) {
+            for (NonTerminal lhs : lhses) {
+                byNonTerminal[lhs.id].cells++;
+            }
+        }
+    }
+
+    public Counts total() {
+        return total;
+    }
+
+    public Counts get(NonTerminal nt) {
+        return byNonTerminal[nt.id];
+    }
+
+    public static Kind kindOf(String name) {
+        if (name.equals("$START")) {
+            return Kind.START;
+        }
+        if (name.endsWith("$$opt")) {
+            return Kind.OPTIONAL;
+        }
+        if (name.contains("$$lst$")) {
+            return Kind.LIST;
+        }
+        if (name.startsWith("$IPNT_")) {
+            return Kind.INLINE;
+        }
+        if (name.startsWith("$NT")) {
+            return Kind.ACTION;
+        }
+        return Kind.USER;
+    }
+
+    public Map<Kind, Counts> byKind() {
+        final Map<Kind, Counts> result = new EnumMap<>(Kind.class);
+        for (NonTerminal nt : context.nonTerminals) {
+            final Kind kind = kindOf(nt.name);
+            result.computeIfAbsent(kind, k -> new Counts(k.name().toLowerCase())).add(byNonTerminal[nt.id]);
+        }
+        return result;
+    }
+
+    /**
+     * The counts by user rule, each one with the sugar created in its right hand sides.
+     */
+    public List<Counts> byRule() {
+        final Map<NonTerminal, NonTerminal> users = usersOf();
+        final Map<NonTerminal, Counts> result = new LinkedHashMap<>();
+        for (NonTerminal nt : context.nonTerminals) {
+            final NonTerminal rule = ruleOf(nt, users, new HashSet<>());
+            result.computeIfAbsent(rule, r -> new Counts(r.name)).add(byNonTerminal[nt.id]);
+        }
+        return sorted(result.values());
+    }
+
+    public List<Counts> byNonTerminal() {
+        return sorted(List.of(byNonTerminal));
+    }
+
+    /**
+     * The left hand side of the first production using each non terminal in its right hand side, other than its own.
+     */
+    private Map<NonTerminal, NonTerminal> usersOf() {
+        final Map<NonTerminal, NonTerminal> users = new HashMap<>();
+        for (Production prod : context.productions) {
+            final NonTerminal lhs = (NonTerminal) prod.lhs.sym();
+            for (ProductionItem item : prod.rhs) {
+                if (item.sym() instanceof NonTerminal nt && nt != lhs) {
+                    users.putIfAbsent(nt, lhs);
+                }
+            }
+        }
+        return users;
+    }
+
+    /**
+     * The user non terminal whose rule created the given one, the non terminal itself if it is not sugar.
+     */
+    private static NonTerminal ruleOf(NonTerminal nt, Map<NonTerminal, NonTerminal> users, Set<NonTerminal> visited) {
+        if (kindOf(nt.name) == Kind.USER || !visited.add(nt)) {
+            return nt;
+        }
+        final NonTerminal user = users.get(nt);
+        return user != null ? ruleOf(user, users, visited) : nt;
+    }
+
+    private static List<Counts> sorted(Collection<Counts> counts) {
+        final List<Counts> result = new ArrayList<>(counts);
+        result.sort(Comparator.comparingInt((Counts c) -> c.states)
+                .thenComparingLong(c -> c.items)
+                .reversed());
+        return result;
+    }
+
+    /**
+     * The top contributors by rule and by non terminal.
+     */
+    public String topContributors(int limit) {
+        final StringBuilder out = new StringBuilder();
+        out.append("  Top rules:\n");
+        appendTable(out, byRule(), limit);
+        out.append("  Top non terminals:\n");
+        appendTable(out, byNonTerminal(), limit);
+        return out.toString();
+    }
+
+    public String report(int limit) {
+        final StringBuilder out = new StringBuilder();
+        out.append("===== Grammar Profile =====\n");
+        out.append("  ").append(total.states).append(" states, ")
+                .append(total.items).append(" items, ")
+                .append(total.cells).append(" table cells\n");
+        out.append("  By kind:\n");
+        appendTable(out, byKind().values(), Integer.MAX_VALUE);
+        out.append(topContributors(limit));
+        return out.toString();
+    }
+
+    private void appendTable(StringBuilder out, Collection<Counts> rows, int limit) {
+        out.append(String.format("    %-32s %8s %8s %8s%n", "", "states", "items", "cells"));
+        int count = 0;
+        for (Counts row : rows) {
+            if (count++ == limit) {
+                break;
+            }
+            out.append(String.format("    %-32s %8d %8d %8d %s%n", row.name, row.states, row.items, row.cells,
+                    percent(row.states, total.states)));
+        }
+    }
+
+    private static String percent(long part, long whole) {
+        return whole == 0 ? "" : String.format("(%.1f%% of states)", 100.0 * part / whole);
+    }
+}
@@ -32,9 +32,10 @@ public class LalrItem {
     protected final symbol symbolAfterDot;
 
     /**
-     * The lookahead symbols of the item.
+     * The lookahead symbols of the item, moved to the lookahead store of the
+     * generation if it has one once the item belongs to a state.
      */
-    public final TerminalSet lookahead;
+    public TerminalSet lookahead;
 
     /**
      * Links to items that the lookahead needs to be propagated to.
@@ -88,6 +89,13 @@ public class LalrItem {
         return (symbolAfterDot instanceof NonTerminal) ? (NonTerminal) symbolAfterDot : null;
     }
 
+    /**
+     * Moves the lookahead to the given store.
+     */
+    void storeLookahead(LookaheadStore store) {
+        lookahead = store.copyOf(lookahead);
+    }
+
     /**
      * Add a new item to the set of items we propagate to.
      *
@@ -267,9 +275,9 @@ public class LalrItem {
         result.append(',');
         if (lookahead != null) {
             result.append('{');
-            for (int t = 0; t < Terminal.size(); t++) {
+            for (int t = 0; t < production.context.terminals.size(); t++) {
                 if (lookahead.contains(t)) {
-                    result.append(Terminal.get(t).name).append(' ');
+                    result.append(production.context.terminal(t).name).append(' ');
                 }
             }
             result.append('}');
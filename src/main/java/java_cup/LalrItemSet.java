@@ -31,6 +31,10 @@ public class LalrItemSet {
         return datas.values();
     }
 
+    public int size() {
+        return datas.size();
+    }
+
     /**
      * Return the item in the set matching a particular item (or null if not
      * found)
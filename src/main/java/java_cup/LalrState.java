@@ -1,6 +1,7 @@
 package java_cup;
 
 import java.util.*;
+import java.util.function.IntPredicate;
 
 /**
  * This class represents a state in the LALR viable prefix recognition machine.
@@ -40,48 +41,34 @@ import java.util.*;
  */
 public class LalrState {
 
-    public static final Map<LalrItemSet, LalrState> ALL = new HashMap<>();
+    private static final int[] EMPTY_ROW = new int[0];
 
+    /**
+     * The generation the state belongs to.
+     */
+    public final GrammarContext context;
     public final int id;
     public final LalrItemSet items;
 
     /**
-     * List of transitions out of this state.
+     * The transitions out of this state on terminals and on non terminals:
+     * pairs of a symbol id and the id of the state to go to, by increasing
+     * symbol id. Set once the state is extended by buildMachine().
      */
-    protected LalrTransition transitions = null;
-
-    public static LalrState create(LalrItemSet itms) {
-
-        if (ALL.containsKey(itms)) {
-            throw new InternalException("Attempt to construct a duplicate LALR state");
-        }
-        LalrState state = new LalrState(ALL.size(), itms);
-        ALL.put(itms, state);
-        return state;
-    }
+    private int[] shifts = EMPTY_ROW;
+    private int[] gotos = EMPTY_ROW;
 
     /**
      * Constructor for building a state from a set of items.
      *
      * @param itms the set of items that makes up this state.
      */
-    private LalrState(int id, LalrItemSet itms) {
+    LalrState(GrammarContext context, int id, LalrItemSet itms) {
+        this.context = context;
         this.id = id;
         this.items = itms;
     }
 
-    public void addTransition(symbol on_sym, LalrState to_st) {
-        transitions = new LalrTransition(on_sym, to_st, transitions);
-    }
-
-    public static Collection<LalrState> all() {
-        return ALL.values();
-    }
-
-    public static void clear() {
-        ALL.clear();
-    }
-
     /**
      * Build an LALR viable prefix recognition machine given a start Production.
      * This method operates by first building a start state from the start
@@ -112,29 +99,31 @@ public class LalrState {
      * of states (i.e., corresponding to LALR rather than canonical LR) the
      * state building process does not maintain full loookaheads in iterator
      * items. Consequently, after the machine is built, we go back and propagate
-     * lookaheads through the constructed machine using a citerator to
-     * propagate_iterator_lookaheads(). This makes use of propagation links
-     * constructed during the closure and transition process.
+     * lookaheads through the constructed machine using a call to
+     * propagateLookaheads(). This makes use of propagation links constructed
+     * during the closure and transition process.
      */
-    public static LalrState buildMachine() {
+    public static LalrState buildMachine(GrammarContext context) {
         LalrItemSet kernel;
 
         final Stack workStack = new Stack();
         final HashMap<LalrItemSet, LalrState> kernels = new HashMap();
 
         final LalrState startState;
+        long items;
         {
             final LalrItemSet startItems = new LalrItemSet();
-            LalrItem itm = new LalrItem(Main.startProduction);
-            itm.lookahead.add(Terminal.EOF);
+            LalrItem itm = new LalrItem(context.startProduction);
+            itm.lookahead.add(context.EOF);
             startItems.add(itm);
             /* create copy the item set to form the kernel */
             kernel = new LalrItemSet(startItems);
 
             /* create the closure from that item set */
             startItems.computeClosure();
-            startState = LalrState.create(startItems);
+            startState = context.createState(startItems);
             workStack.push(startState);
+            items = startItems.size();
 
             kernels.put(kernel, startState);
         }
@@ -143,36 +132,43 @@ public class LalrState {
         while (!workStack.empty()) {
             final LalrState currState = (LalrState) workStack.pop();
 
-            /* gather up iterator the symbols that appear before dots */
-            HashSet<symbol> outgoing = new HashSet<symbol>();
+            /* group the items by the symbol that appears after their dot,
+             in one pass over the items */
+            final HashMap<symbol, List<LalrItem>> outgoing = new HashMap<>();
             for (LalrItem item : currState.items.values()) {
 
-                /* add the symbol before the dot (if any) to our collection */
+                /* add the item under the symbol after the dot (if any), with
+                 put rather than computeIfAbsent that resizes the map at other
+                 times, which would change the order the states are numbered in */
                 symbol sym = item.symbolAfterDot;
                 if (sym != null) {
-                    outgoing.add(sym);
+                    List<LalrItem> group = outgoing.get(sym);
+                    if (group == null) {
+                        outgoing.put(sym, group = new ArrayList<>());
+                    }
+                    group.add(item);
                 }
             }
 
+            /* the transitions out, as symbol id and state id pairs */
+            final long[] shifts = new long[outgoing.size()];
+            final long[] gotos = new long[outgoing.size()];
+            int shiftCount = 0;
+            int gotoCount = 0;
+
             /* now create a transition out for each individual symbol */
-            for (symbol sym : outgoing) {
+            for (Map.Entry<symbol, List<LalrItem>> group : outgoing.entrySet()) {
+                final symbol sym = group.getKey();
 
-                /* will be keeping the set of items with propagate links */
-                LalrItemSet linked_items = new LalrItemSet();
+                /* the items with propagate links */
+                final List<LalrItem> linked_items = group.getValue();
 
-                /* gather up shifted versions of iterator the items that have this
-                 symbol before the dot */
+                /* gather up shifted versions of the items that have this
+                 symbol after the dot */
                 LalrItemSet new_items = new LalrItemSet();
-                for (LalrItem item : currState.items.values()) {
-
-                    /* if this is the symbol we are working on now, add to set */
-                    if (sym.equals(item.symbolAfterDot)) {
-                        /* add to the kernel of the new state */
-                        new_items.add(item.shift());
-
-                        /* remember that itm has propagate link to it */
-                        linked_items.add(item);
-                    }
+                for (LalrItem item : linked_items) {
+                    /* add to the kernel of the new state */
+                    new_items.add(item.shift());
                 }
 
                 /* use new items as state kernel */
@@ -187,7 +183,9 @@ public class LalrState {
                     new_items.computeClosure();
 
                     /* build the new state */
-                    new_st = LalrState.create(new_items);
+                    new_st = context.createState(new_items);
+                    items += new_items.size();
+                    context.checkBudget(items);
 
                     /* add the new state to our work set */
                     workStack.push(new_st);
@@ -196,7 +194,7 @@ public class LalrState {
                     kernels.put(kernel, new_st);
                 } /* otherwise relink propagation to items in existing state */ else {
                     /* walk through the items that have links to the new state */
-                    for (LalrItem fix_itm : linked_items.values()) {
+                    for (LalrItem fix_itm : linked_items) {
 
                         /* look at each propagate link out of that item */
                         for (int l = 0; l < fix_itm.propagateItems.size(); l++) {
@@ -215,19 +213,30 @@ public class LalrState {
                 }
 
                 /* add a transition from current state to that state */
-                currState.addTransition(sym, new_st);
+                if (sym instanceof Terminal) {
+                    shifts[shiftCount++] = (long) sym.id << 32 | new_st.id;
+                } else {
+                    gotos[gotoCount++] = (long) sym.id << 32 | new_st.id;
+                }
             }
+            currState.shifts = row(shifts, shiftCount);
+            currState.gotos = row(gotos, gotoCount);
         }
 
         /* iterator done building states */
+        return startState;
+    }
 
-        /* propagate complete lookahead sets throughout the states */
-        for (LalrState state : all()) {
+    /**
+     * Propagate complete lookahead sets throughout the states built by
+     * buildMachine().
+     */
+    public static void propagateLookaheads(GrammarContext context) {
+        for (LalrState state : context.states()) {
             for (LalrItem item : state.items.values()) {
                 item.propagateLookaheads(null);
             }
         }
-        return startState;
     }
 
     /**
@@ -242,52 +251,45 @@ public class LalrState {
      * terminals and represents transitions out of a state on that
      * non-Terminal.<p>
      * Conflicts occur if more than one code needs to go in one entry of the
-     * code table (this cannot happen with the reduce-goto table). Conflicts are
+     * code table (this cannot happen with the reduce-goto table, whose row is
+     * built apart by gotoRow()). Conflicts are
      * resolved by always shifting for shift/reduce conflicts and choosing the
      * lowest sizeed Production (hence the one that appeared first in the
      * specification) in reduce/reduce conflicts. All conflicts are reported and
      * if more conflicts are detected than were declared by the user, code
      * generation is aborted.
      *
-     * @param act_table the code table to put entries in.
-     * @param reduce_table the reduce-goto table to put entries in.
+     * @param our_act_row the row of this state in the code table, to put
+     * entries in.
+     * @return the terminals with unresolved conflicts, to be handed to
+     * report_conflicts(), or null if there are none
      */
-    public void buildTableEntries(Action[][] act_table, LalrState[][] reduce_table) {
+    public TerminalSet buildTableEntries(int[] our_act_row) {
 
         final TerminalSet conflict_set = new TerminalSet();
 
-        /* pull out our rows from the tables */
-        final Action[] our_act_row = act_table[id];
-        final LalrState[] our_red_row = reduce_table[id];
-
         /* consider each item in our state */
         for (LalrItem item : items.values()) {
 
             /* if its completed (dot at end) then reduce under the lookahead */
             if (item.dotAtEnd) {
-                Action act = new ReduceAction((item.production));
+                final int act = Action.reduce(item.production);
 
                 /* consider each lookahead symbol */
-                for (int t = 0; t < Terminal.size(); t++) {
-                    /* skip over the ones not in the lookahead */
-                    if (!(item.lookahead).contains(t)) {
-                        continue;
-                    }
+                for (int t = item.lookahead.next(0); t >= 0; t = item.lookahead.next(t + 1)) {
 
                     /* if we don't already have an code put this one in */
-                    if (our_act_row[t].type() == Action.ERROR) {
+                    if (our_act_row[t] == Action.ERROR) {
                         our_act_row[t] = act;
                     } else {
                         /* we now have at least one conflict */
-                        Terminal term = Terminal.get(t);
-                        Action otherAction = our_act_row[t];
+                        Terminal term = context.terminal(t);
+                        final int otherAction = our_act_row[t];
 
                         /* if the other act was not a shift */
-                        if ((otherAction.type() != Action.SHIFT)
-                                && (otherAction.type() != Action.NONASSOC)) {
+                        if (Action.isReduce(otherAction)) {
                             /* if we have lower id hence priority, replace it*/
-                            if (item.production.id
-                                    < ((ReduceAction) otherAction).reduceWith().id) {
+                            if (item.production.id < Action.reduceProduction(otherAction)) {
                                 /* replace the code */
                                 our_act_row[t] = act;
                             }
@@ -305,37 +307,73 @@ public class LalrState {
             }
         }
 
-        /* consider each outgoing transition */
-        for (LalrTransition trans = transitions; trans != null; trans = trans.next()) {
-            /* if its on an Terminal add a shift entry */
-            symbol sym = trans.symbol();
-            int symId = sym.id;
-            if (sym instanceof NonTerminal) {
-                /* for non terminals add an entry to the reduce-goto table */
-                our_red_row[symId] = trans.state();
+        /* consider each outgoing transition on a Terminal, add a shift entry */
+        for (int i = 0; i < shifts.length; i += 2) {
+            final int symId = shifts[i];
+            final int act = Action.shift(shifts[i + 1]);
+
+            /* if we don't already have an code put this one in */
+            if (our_act_row[symId] == Action.ERROR) {
+                our_act_row[symId] = act;
             } else {
-                Action act = new ShiftAction((trans.state()));
+                /* we now have at least one conflict */
+                Production p = context.productions.get(Action.reduceProduction(our_act_row[symId]));
 
-                /* if we don't already have an code put this one in */
-                if (our_act_row[symId].type() == Action.ERROR) {
+                /* shift always wins */
+                if (!fixWithPrecedence(p, symId, our_act_row, act)) {
                     our_act_row[symId] = act;
-                } else {
-                    /* we now have at least one conflict */
-                    Production p = ((ReduceAction) our_act_row[symId]).reduceWith();
-
-                    /* shift always wins */
-                    if (!fixWithPrecedence(p, symId, our_act_row, act)) {
-                        our_act_row[symId] = act;
-                        conflict_set.add((Terminal) sym);
-                    }
+                    conflict_set.add(context.terminal(symId));
                 }
             }
         }
 
-        /* if we end up with conflict(s), report them */
-        if (!conflict_set.empty()) {
-            report_conflicts(conflict_set);
+        /* if we end up with conflict(s), they are reported later */
+        return conflict_set.empty() ? null : conflict_set;
+    }
+
+    /**
+     * Drops the propagation links of the items, once the lookaheads are
+     * propagated, so the items of other states are not kept alive through
+     * them.
+     */
+    void releaseLinks() {
+        for (LalrItem item : items.values()) {
+            item.propagateItems.clear();
+        }
+    }
+
+    /**
+     * The transitions out of this state on terminals: pairs of a terminal id
+     * and the id of the state to go to, by increasing terminal id.
+     */
+    public int[] shiftRow() {
+        return shifts;
+    }
+
+    /**
+     * The row of this state in the reduce-goto table, the transitions on non
+     * terminals: pairs of a non terminal id and the id of the state to go to,
+     * by increasing non terminal id.
+     */
+    public int[] gotoRow() {
+        return gotos;
+    }
+
+    /**
+     * The first count symbol id and state id pairs, packed in longs, as a
+     * sorted row of ints.
+     */
+    private static int[] row(long[] pairs, int count) {
+        if (count == 0) {
+            return EMPTY_ROW;
         }
+        Arrays.sort(pairs, 0, count);
+        final int[] row = new int[2 * count];
+        for (int i = 0; i < count; i++) {
+            row[2 * i] = (int) (pairs[i] >>> 32);
+            row[2 * i + 1] = (int) pairs[i];
+        }
+        return row;
     }
 
     /**
@@ -360,10 +398,10 @@ public class LalrState {
     protected boolean fixWithPrecedence(
             Production p,
             int term_index,
-            Action[] table_row,
-            Action act) {
+            int[] table_row,
+            int act) {
 
-        Terminal term = Terminal.get(term_index);
+        Terminal term = context.terminal(term_index);
 
         /* if the Production has a precedence size, it can be fixed */
         if (p.precedence > Assoc.NONE) {
@@ -391,7 +429,7 @@ public class LalrState {
                     return true;
                 } /* if it is NONASSOC, we're not allowed to have two nonassocs
                  of equal precedence in a row, so put in NONASSOC */ else if (term.precedenceSide() == Assoc.NONASSOC) {
-                    table_row[term_index] = Action.NONASSOC_ACTION;
+                    table_row[term_index] = Action.NONASSOC;
                     return true;
                 } else {
                     /* something really went wrong */
@@ -408,21 +446,20 @@ public class LalrState {
         return false;
     }
 
-    /*  given two actions, and an code type, return the 
-     code of that code type.  give an ERROR if they are of
-     the same code, because that should never have tried
-     to be fixed 
+    /*  given two actions, return the one the test accepts.
+     give an ERROR if both or none are accepted, because that
+     should never have tried to be fixed 
      
      */
-    protected Action insert_action(
-            Action a1,
-            Action a2,
-            int act_type) {
-        if ((a1.type() == act_type) && (a2.type() == act_type)) {
+    protected int insert_action(
+            int a1,
+            int a2,
+            IntPredicate act_type) {
+        if (act_type.test(a1) && act_type.test(a2)) {
             throw new InternalException("Conflict resolution of bogus actions");
-        } else if (a1.type() == act_type) {
+        } else if (act_type.test(a1)) {
             return a1;
-        } else if (a2.type() == act_type) {
+        } else if (act_type.test(a2)) {
             return a2;
         } else {
             throw new InternalException("Conflict resolution of bogus actions");
@@ -430,62 +467,59 @@ public class LalrState {
     }
 
     /* get the shift in the two actions */
-    protected Action insert_shift(
-            Action a1,
-            Action a2) {
-        return insert_action(a1, a2, Action.SHIFT);
+    protected int insert_shift(
+            int a1,
+            int a2) {
+        return insert_action(a1, a2, Action::isShift);
     }
 
     /* get the reduce in the two actions */
-    protected Action insert_reduce(
-            Action a1,
-            Action a2) {
-        return insert_action(a1, a2, Action.REDUCE);
+    protected int insert_reduce(
+            int a1,
+            int a2) {
+        return insert_action(a1, a2, Action::isReduce);
     }
 
     /**
-     * Produce warning messages for iterator conflicts found in this state.
+     * Report the conflicts found in this state, as {@link Conflict} records.
+     *
+     * @param conflict_set the terminals with unresolved conflicts, from
+     * buildTableEntries()
      */
-    protected void report_conflicts(TerminalSet conflict_set) {
+    public void report_conflicts(TerminalSet conflict_set) {
+
+        /* the terminals some item of this state shifts */
+        final TerminalSet shifted = new TerminalSet();
+        for (int i = 0; i < shifts.length; i += 2) {
+            shifted.add(context.terminal(shifts[i]));
+        }
+        final TerminalSet shift_conflicts = conflict_set.intersection(shifted);
 
         boolean after_itm;
 
         /* consider each element */
         for (LalrItem itm : items.values()) {
 
-            /* clear the S/R conflict set for this item */
-
             /* if it results in a reduce, it could be a conflict */
             if (itm.dotAtEnd) {
                 /* not yet after itm */
                 after_itm = false;
 
-                /* compare this item against iterator others looking for conflicts */
+                /* compare this item against the reduces after it looking for conflicts */
                 for (LalrItem compare : items.values()) {
-
-                    /* if this is the item, next one is after it */
                     if (itm == compare) {
                         after_itm = true;
-                    }
-
-                    /* only look at it if its not the same item */
-                    if (itm != compare) {
-                        /* is it a reduce */
-                        if (compare.dotAtEnd) {
-                            /* only look at reduces after itm */
-                            if (after_itm) /* does the comparison item conflict? */ {
-                                if ((compare.lookahead).intersects(itm.lookahead)) /* report a reduce/reduce conflict */ {
-                                    Main.reportReduceReduceConflict(this, itm, compare);
-                                }
-                            }
-                        }
+                    } else if (after_itm && compare.dotAtEnd && compare.lookahead.intersects(itm.lookahead)) {
+                        /* a reduce/reduce conflict */
+                        context.reportConflict(new Conflict(this, itm, compare,
+                                itm.lookahead.intersection(compare.lookahead)));
                     }
                 }
-                /* report S/R conflicts under iterator the symbols we conflict under */
-                for (int t = 0; t < Terminal.size(); t++) {
-                    if (conflict_set.contains(t) && itm.lookahead.contains(t)) {
-                        Main.reportShiftReduceConflict(this, itm, t);
-                    }
+
+                /* the S/R conflicts under the symbols we conflict under */
+                if (shift_conflicts.intersects(itm.lookahead)) {
+                    context.reportConflict(new Conflict(this, itm, null,
+                            shift_conflicts.intersection(itm.lookahead)));
                 }
             }
         }
@@ -508,8 +542,13 @@ public class LalrState {
     public String toString() {
         StringBuilder result = new StringBuilder();
         result.append("LalrState [").append(id).append("]: ").append(items).append('\n');
-        for (LalrTransition tr = transitions; tr != null; tr = tr.next()) {
-            result.append(tr).append('\n');
+        for (int i = 0; i < shifts.length; i += 2) {
+            result.append("transition on ").append(context.terminal(shifts[i]).name)
+                    .append(" to state [").append(shifts[i + 1]).append("]\n");
+        }
+        for (int i = 0; i < gotos.length; i += 2) {
+            result.append("transition on ").append(context.nonTerminals.get(gotos[i]).name)
+                    .append(" to state [").append(gotos[i + 1]).append("]\n");
         }
         return result.toString();
     }
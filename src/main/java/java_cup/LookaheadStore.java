@@ -0,0 +1,244 @@
+package java_cup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Keeps the lookaheads of the items of the states, as fixed width bit sets in chunks of words: on the heap up to a
+ * budget, then in a memory-mapped scratch file, paged in and out by the operating system. So a grammar whose machine
+ * does not fit the heap along with its lookaheads still gets generated, slower.
+ * <p>
+ * A lookahead is only stored once its item belongs to a state, the items of the closures and kernels that turn out
+ * to be already known are left as they are. The scratch file is deleted when the store is closed, the lookaheads
+ * stay readable until the store is let go of.
+ */
+class LookaheadStore implements AutoCloseable {
+
+    private static final int CHUNK_BYTES = 4 << 20;
+
+    private final int words;
+    private final int chunkSlots;
+    private final long heapBytes;
+    private final File dir;
+    private final List<LongBuffer> chunks = new ArrayList<>();
+    private int heapChunks = 0;
+    private int slots = 0;
+    private Path file;
+    private FileChannel channel;
+
+    /**
+     * @param terminals the count of terminals of the grammar
+     * @param heapBytes the bytes of lookaheads to keep on the heap before spilling to the scratch file
+     * @param dir the directory of the scratch file, null for the temporary directory
+     */
+    LookaheadStore(int terminals, long heapBytes, File dir) {
+        this.words = Math.max(1, (terminals + 63) >> 6);
+        this.chunkSlots = CHUNK_BYTES / (words << 3);
+        this.heapBytes = heapBytes;
+        this.dir = dir;
+    }
+
+    /**
+     * A new stored lookahead holding the terminals of the given set.
+     */
+    TerminalSet copyOf(TerminalSet set) {
+        final Stored stored = new Stored(allocate());
+        final long[] from = set.bits().toLongArray();
+        stored.chunk.put(stored.base, from, 0, from.length);
+        return stored;
+    }
+
+    private int allocate() {
+        if (slots == chunks.size() * chunkSlots) {
+            if (channel == null && heapBytes >= (long) (heapChunks + 1) * CHUNK_BYTES) {
+                chunks.add(LongBuffer.wrap(new long[CHUNK_BYTES >> 3]));
+                heapChunks++;
+            } else {
+                chunks.add(map());
+            }
+        }
+        return slots++;
+    }
+
+    private LongBuffer map() {
+        try {
+            if (channel == null) {
+                file = dir != null
+                        ? Files.createTempFile(Files.createDirectories(dir.toPath()), "java_cup", ".lookaheads")
+                        : Files.createTempFile("java_cup", ".lookaheads");
+                channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                        StandardOpenOption.DELETE_ON_CLOSE);
+            }
+            final long position = (long) (chunks.size() - heapChunks) * CHUNK_BYTES;
+            return channel.map(FileChannel.MapMode.READ_WRITE, position, CHUNK_BYTES)
+                    .order(ByteOrder.nativeOrder())
+                    .asLongBuffer();
+        } catch (IOException e) {
+            throw new InternalException("Unable to spill the lookaheads to a scratch file: " + e);
+        }
+    }
+
+    /**
+     * The bytes of the lookaheads stored so far.
+     */
+    long storedBytes() {
+        return (long) slots * words << 3;
+    }
+
+    /**
+     * The bytes of the scratch file, zero if nothing was spilled.
+     */
+    long spilledBytes() {
+        return (long) (chunks.size() - heapChunks) * CHUNK_BYTES;
+    }
+
+    /**
+     * The scratch file, null if nothing was spilled.
+     */
+    Path file() {
+        return file;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * A lookahead of the store, the words of one slot.
+     */
+    private final class Stored extends TerminalSet {
+
+        final int slot;
+        final LongBuffer chunk;
+        final int base;
+
+        Stored(int slot) {
+            super((BitSet) null);
+            this.slot = slot;
+            this.chunk = chunks.get(slot / chunkSlots);
+            this.base = (slot % chunkSlots) * words;
+        }
+
+        @Override
+        protected BitSet bits() {
+            final long[] bits = new long[words];
+            chunk.get(base, bits);
+            return BitSet.valueOf(bits);
+        }
+
+        @Override
+        public boolean empty() {
+            for (int w = 0; w < words; w++) {
+                if (chunk.get(base + w) != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public boolean contains(int indx) {
+            return (indx >> 6) < words && (chunk.get(base + (indx >> 6)) & (1L << indx)) != 0;
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (int w = 0; w < words; w++) {
+                size += Long.bitCount(chunk.get(base + w));
+            }
+            return size;
+        }
+
+        @Override
+        public int next(int from) {
+            int w = from >> 6;
+            if (from < 0 || w >= words) {
+                return -1;
+            }
+            long word = chunk.get(base + w) & (-1L << from);
+            while (word == 0) {
+                if (++w == words) {
+                    return -1;
+                }
+                word = chunk.get(base + w);
+            }
+            return (w << 6) + Long.numberOfTrailingZeros(word);
+        }
+
+        @Override
+        public TerminalSet intersection(TerminalSet other) {
+            return new TerminalSet(this).intersection(other);
+        }
+
+        @Override
+        public boolean isSubOf(TerminalSet other) {
+            final BitSet bits = bits();
+            bits.andNot(other.bits());
+            return bits.isEmpty();
+        }
+
+        @Override
+        public boolean add(Terminal sym) {
+            final int w = base + (sym.id >> 6);
+            final long word = chunk.get(w);
+            chunk.put(w, word | (1L << sym.id));
+            return (word & (1L << sym.id)) != 0;
+        }
+
+        @Override
+        public boolean add(TerminalSet other) {
+            boolean changed = false;
+            if (other instanceof Stored stored && stored.outer() == LookaheadStore.this) {
+                for (int w = 0; w < words; w++) {
+                    final long word = chunk.get(base + w);
+                    final long added = word | stored.chunk.get(stored.base + w);
+                    if (added != word) {
+                        chunk.put(base + w, added);
+                        changed = true;
+                    }
+                }
+            } else {
+                final long[] from = other.bits().toLongArray();
+                for (int w = 0; w < from.length; w++) {
+                    final long word = chunk.get(base + w);
+                    final long added = word | from[w];
+                    if (added != word) {
+                        chunk.put(base + w, added);
+                        changed = true;
+                    }
+                }
+            }
+            return changed;
+        }
+
+        @Override
+        public boolean intersects(TerminalSet other) {
+            if (other instanceof Stored stored && stored.outer() == LookaheadStore.this) {
+                for (int w = 0; w < words; w++) {
+                    if ((chunk.get(base + w) & stored.chunk.get(stored.base + w)) != 0) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            return bits().intersects(other.bits());
+        }
+
+        private LookaheadStore outer() {
+            return LookaheadStore.this;
+        }
+    }
+}
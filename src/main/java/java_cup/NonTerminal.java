@@ -1,8 +1,6 @@
 package java_cup;
 
-import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
 
 /**
@@ -13,24 +11,12 @@ import java.util.Set;
  */
 public class NonTerminal extends symbol {
 
-    public static final List<NonTerminal> ALL = new ArrayList<>();
-
-    public static void clear() {
-        ALL.clear();
-    }
-
-    public static NonTerminal create(String name, String type) {
-        NonTerminal nonTerminal = new NonTerminal(ALL.size(), name, type);
-        ALL.add(nonTerminal);
-        return nonTerminal;
-    }
-
     public final Set<Production> productions = new HashSet<>(11);
     public final TerminalSet firstSet = new TerminalSet();
 
     protected boolean _nullable;
 
-    private NonTerminal(int id, String name, String type) {
+    NonTerminal(int id, String name, String type) {
         super(id, name, type);
     }
 
@@ -46,4 +32,9 @@ public class NonTerminal extends symbol {
         }
         return false;
     }
+
+    @Override
+    public int hashCode() {
+        return id << 1 | 1;
+    }
 }
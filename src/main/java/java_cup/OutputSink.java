@@ -0,0 +1,112 @@
+package java_cup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Where a generated parser is written: the Java sources of the parser and tokens classes, and the serialized tables
+ * loaded by the parser as resources.
+ */
+public interface OutputSink {
+
+    /**
+     * Opens a Java source, like {@code Parser.java}.
+     */
+    Writer openSource(String fileName) throws IOException;
+
+    /**
+     * Opens a resource, like {@code Parser$Action.data}.
+     */
+    OutputStream openResource(String fileName) throws IOException;
+
+    /**
+     * Deletes a resource written before, if any, like a table the parser no longer needs.
+     */
+    void deleteResource(String fileName) throws IOException;
+
+    /**
+     * Writes the sources and the resources to files in the given directories, created if missing.
+     *
+     * @param sourceDir the directory of the sources, null for the current directory
+     * @param resourceDir the directory of the resources, null for the current directory
+     */
+    static OutputSink directories(File sourceDir, File resourceDir) {
+        return new OutputSink() {
+            @Override
+            public Writer openSource(String fileName) throws IOException {
+                return new OutputStreamWriter(new FileOutputStream(file(sourceDir, fileName)), StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public OutputStream openResource(String fileName) throws IOException {
+                return new FileOutputStream(file(resourceDir, fileName));
+            }
+
+            @Override
+            public void deleteResource(String fileName) throws IOException {
+                Files.deleteIfExists(new File(resourceDir, fileName).toPath());
+            }
+
+            private File file(File dir, String fileName) {
+                if (dir != null && !dir.exists()) {
+                    dir.mkdirs();
+                }
+                return new File(dir, fileName);
+            }
+        };
+    }
+
+    /**
+     * Keeps everything written in memory, by file name.
+     */
+    final class InMemory implements OutputSink {
+
+        private final Map<String, StringWriter> sources = new ConcurrentHashMap<>();
+        private final Map<String, ByteArrayOutputStream> resources = new ConcurrentHashMap<>();
+
+        @Override
+        public Writer openSource(String fileName) {
+            final StringWriter writer = new StringWriter();
+            sources.put(fileName, writer);
+            return writer;
+        }
+
+        @Override
+        public OutputStream openResource(String fileName) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            resources.put(fileName, out);
+            return out;
+        }
+
+        @Override
+        public void deleteResource(String fileName) {
+            resources.remove(fileName);
+        }
+
+        /**
+         * The source written to the given file, null if none.
+         */
+        public String source(String fileName) {
+            final StringWriter writer = sources.get(fileName);
+            return writer != null ? writer.toString() : null;
+        }
+
+        /**
+         * The bytes written to the given resource, null if none.
+         */
+        public byte[] resource(String fileName) {
+            final ByteArrayOutputStream out = resources.get(fileName);
+            return out != null ? out.toByteArray() : null;
+        }
+    }
+}
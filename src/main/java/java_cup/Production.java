@@ -1,8 +1,5 @@
 package java_cup;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * This class represents a Production in the grammar. It contains a LHS non Terminal, and an array of RHS symbols. As
  * various transformations are done on the RHS of the Production, it may shrink. As a result a separate length is always
@@ -10,9 +7,7 @@ import java.util.List;
  */
 public class Production implements Comparable<Production> {
 
-    public static final List<Production> ALL = new ArrayList<>();
-
-    public static Production create(NonTerminal lhsSymbol, Object[] rhsCandi) {
+    static Production create(GrammarContext context, NonTerminal lhsSymbol, Object[] rhsCandi) {
         lhsSymbol.use();
 
         ProductionItem[] temp = new ProductionItem[rhsCandi.length];
@@ -24,7 +19,7 @@ public class Production implements Comparable<Production> {
         for (Object part : rhsCandi) {
             if (part instanceof ProductionItem) {
                 if (lasAction != null) {
-                    temp[count++] = createInsidePart(lasAction);
+                    temp[count++] = createInsidePart(context, lasAction);
                     lasAction = null;
                 }
                 var item = (ProductionItem) part;
@@ -59,7 +54,8 @@ public class Production implements Comparable<Production> {
 
         String code;
         if (lasAction != null) {
-            code = resolveCode(rhs, lasAction.trim());
+            // compiled with the other actions once the grammar is parsed, see compileAction()
+            code = lasAction.trim();
         } else {
             if (resultSym >= 0) {
                 code = "yield myStack.peek(" + (count - resultSym - 1) + ").value;";
@@ -67,28 +63,36 @@ public class Production implements Comparable<Production> {
                 code = "yield null;";
             }
         }
-        code = code.trim();
-        Production prod = new Production(ALL.size(), new ProductionItem(lhsSymbol), rhs, code, prec);
+        Production prod = new Production(context, context.productions.size(), new ProductionItem(lhsSymbol), rhs,
+                lasAction != null ? code : null, code, prec);
 
         //XXX check if have a yield statement
         if (!code.contains("yield ")) {
             throw new InternalException("Production must has a 'yield':" + prod);
         }
 
-        ALL.add(prod);
+        context.productions.add(prod);
         lhsSymbol.productions.add(prod);
         return prod;
     }
 
-    public static void clear() {
-        ALL.clear();
-    }
-
+    /**
+     * The generation the production belongs to.
+     */
+    public final GrammarContext context;
     public final int id;
     public final ProductionItem lhs;
     public final ProductionItem[] rhs;
-    public final String code;
+    /**
+     * The action as written, null for the default action, until it is compiled.
+     */
+    private String action;
+    /**
+     * The code of the action, the placeholders of the action replaced once it is compiled.
+     */
+    public String code;
     public final int precedence;
+    private boolean readsPositions = false;
     /**
      * Count of size of reductions using this Production.
      */
@@ -110,10 +114,13 @@ public class Production implements Comparable<Production> {
      */
     protected TerminalSet _first_set = new TerminalSet();
 
-    private Production(int id, ProductionItem lhs, ProductionItem[] rhs, String code, int precedence) {
+    private Production(GrammarContext context, int id, ProductionItem lhs, ProductionItem[] rhs, String action,
+                       String code, int precedence) {
+        this.context = context;
         this.id = id;
         this.lhs = lhs;
         this.rhs = rhs;
+        this.action = action;
         this.code = code;
         this.precedence = precedence;
     }
@@ -140,6 +147,11 @@ public class Production implements Comparable<Production> {
         return _first_set;
     }
 
+    @Override
+    public int hashCode() {
+        return id;
+    }
+
     @Override
     public int compareTo(Production o) {
         int result;
@@ -149,61 +161,32 @@ public class Production implements Comparable<Production> {
         return result;
     }
 
-    protected static ProductionItem createInsidePart(String code) {
-        NonTerminal terminal = NonTerminal.create("$NT" + NonTerminal.ALL.size(), null);
-        Production.create(terminal, new Object[]{code});
+    protected static ProductionItem createInsidePart(GrammarContext context, String code) {
+        NonTerminal terminal = context.createNonTerminal("$NT" + context.nonTerminals.size(), null);
+        create(context, terminal, new Object[]{code});
         ProductionItem symbolPart = new ProductionItem(terminal);
         return symbolPart;
     }
 
-    protected static String resolveCode(ProductionItem[] rhs, String code) {
-        if (code.indexOf('%') < 0) {
-            return code;
+    /**
+     * Replaces the placeholders of the action, see {@link ActionTemplate}. The actions of a grammar are independent
+     * of each other, they are compiled in parallel.
+     */
+    void compileAction() {
+        if (action != null) {
+            final ActionTemplate.Compiled compiled = ActionTemplate.compile(rhs, action);
+            code = compiled.code().trim();
+            readsPositions = compiled.readsPositions(rhs);
+            action = null;
         }
-        final StringBuilder declaration = new StringBuilder();
+    }
 
-        for (int i = 0; i < rhs.length; i++) {
-            ProductionItem part = (ProductionItem) rhs[i];
-            if (part.label() == null) {
-                continue;
-            }
-            String labelName = part.label();
-            String stackType = part.sym().type;
-            String stackTypeString = "Object".equals(stackType) ? "" : ("(" + stackType + ") ");
-            int offset = rhs.length - i - 1;
-            //
-            boolean count_value = false;
-            String repalce_value = '%' + labelName + '%';
-            String repalce_line = '%' + labelName + ".line%";
-            String repalce_column = '%' + labelName + ".column%";
-            String repalce_symbol = '%' + labelName + ".symbol%";
-            //
-            int index;
-            index = code.indexOf(repalce_value);
-            if (index >= 0) {
-                count_value = (code.indexOf(repalce_value, index + repalce_value.length()) >= 0);
-            }
-            if (!count_value) {
-                count_value = code.contains(repalce_line)
-                        || code.contains(repalce_column)
-                        || code.contains(repalce_symbol);
-            }
-            if (count_value) {
-                declaration.append("                var ").append(labelName).append("Symbol = myStack.peek(").append(offset).append(");\n");
-                code = StringUtil.replace(code, new String[]{
-                    repalce_value, repalce_line, repalce_column, repalce_symbol
-                }, new String[]{
-                    stackTypeString + labelName + "Symbol.value",
-                    labelName.concat("Symbol.line"),
-                    labelName.concat("Symbol.column"),
-                    labelName.concat("Symbol")
-                });
-            } else {
-                code = StringUtil.replace(code, repalce_value, stackTypeString + "myStack.peek(" + offset + ").value");
-                code = code.replaceAll("yield \\([a-zA-Z0-9_$]+\\) (myStack\\.peek\\([0-9]+\\)\\.value;)", "yield $1");
-            }
-        }
-        return declaration.append(code).toString();
+    /**
+     * Whether the action reads the position of a non terminal of the right hand side, which then needs the results of
+     * the reductions positioned.
+     */
+    public boolean readsPositions() {
+        return readsPositions;
     }
 
     /**
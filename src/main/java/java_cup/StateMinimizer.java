@@ -0,0 +1,144 @@
+package java_cup;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges the states of the filled in tables that behave the same: the same actions under the same terminals and the
+ * same gotos under the same non terminals, to states that behave the same in turn. The conflicts are resolved in the
+ * rows already, so merging keeps their resolution. The productions with the same left hand side, length and code
+ * reduce the same way, so their reductions count as the same, which merges the states reducing the alternatives
+ * of a rule like {@code name ::= ID | KEYWORD}, and then gives the terminals shifted to them the same column, see
+ * {@link TerminalClasses}.
+ * <p>
+ * The states are split by partition refinement: all of them start in one block, then every round splits the blocks
+ * by the rows of their states with the targets replaced by the blocks of the targets, until no block splits. The
+ * blocks are numbered in the order of their first state, so the start state stays state zero.
+ */
+final class StateMinimizer {
+
+    private StateMinimizer() {
+    }
+
+    /**
+     * The tables with the equivalent states merged.
+     *
+     * @param actions the action rows, pairs of terminal and encoded action
+     * @param gotos the goto rows, pairs of non terminal and state
+     * @param states the new id of every old state
+     */
+    record Result(
+            int[][] actions,
+            int[][] gotos,
+            int[] states
+    ) {
+
+        int stateCount() {
+            return actions.length;
+        }
+    }
+
+    /**
+     * The rows of a state with the targets replaced by their blocks, as the key of its new block.
+     */
+    private record Signature(int[] data) {
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Signature signature && Arrays.equals(data, signature.data);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(data);
+        }
+    }
+
+    /**
+     * The first production reduced the same way as every production: with the same left hand side, length and code.
+     */
+    static int[] sameReductions(List<Production> productions) {
+        final Map<List<Object>, Integer> first = new HashMap<>();
+        final int[] same = new int[productions.size()];
+        for (Production prod : productions) {
+            same[prod.id] = first.computeIfAbsent(List.of(prod.lhs.sym().id, prod.rhs.length, prod.code),
+                    key -> prod.id);
+        }
+        return same;
+    }
+
+    /**
+     * @param reductions the production every production is reduced as, see {@link #sameReductions(List)}
+     */
+    static Result minimize(int[][] actions, int[][] gotos, int[] reductions) {
+        final int count = actions.length;
+        int[] block = new int[count];
+        int blocks = 1;
+        while (true) {
+            final Map<Signature, Integer> split = new HashMap<>();
+            final int[] next = new int[count];
+            for (int state = 0; state < count; state++) {
+                final Signature signature = signature(block[state], actions[state], gotos[state], block, reductions);
+                Integer id = split.get(signature);
+                if (id == null) {
+                    split.put(signature, id = split.size());
+                }
+                next[state] = id;
+            }
+            block = next;
+            if (split.size() == blocks) {
+                break;
+            }
+            blocks = split.size();
+        }
+
+        // the blocks are numbered by their first state already, the first state of a block stands for it
+        final int[][] minActions = new int[blocks][];
+        final int[][] minGotos = new int[blocks][];
+        for (int state = 0; state < count; state++) {
+            final int id = block[state];
+            if (minActions[id] != null) {
+                continue;
+            }
+            final int[] row = actions[state].clone();
+            for (int i = 1; i < row.length; i += 2) {
+                row[i] = action(row[i], block, reductions);
+            }
+            final int[] gotoRow = gotos[state].clone();
+            for (int i = 1; i < gotoRow.length; i += 2) {
+                gotoRow[i] = block[gotoRow[i]];
+            }
+            minActions[id] = row;
+            minGotos[id] = gotoRow;
+        }
+        return new Result(minActions, minGotos, block);
+    }
+
+    private static Signature signature(int block, int[] actions, int[] gotos, int[] blocks, int[] reductions) {
+        final int[] data = new int[2 + actions.length + gotos.length];
+        int at = 0;
+        data[at++] = block;
+        for (int i = 0; i < actions.length; i += 2) {
+            data[at++] = actions[i];
+            data[at++] = action(actions[i + 1], blocks, reductions);
+        }
+        data[at++] = -1;
+        for (int i = 0; i < gotos.length; i += 2) {
+            data[at++] = gotos[i];
+            data[at++] = blocks[gotos[i + 1]];
+        }
+        return new Signature(data);
+    }
+
+    /**
+     * The given action with its target replaced by its block, or its production by the one it is reduced as.
+     */
+    private static int action(int act, int[] blocks, int[] reductions) {
+        if (Action.isShift(act)) {
+            return Action.shift(blocks[Action.shiftState(act)]);
+        }
+        return Action.isReduce(act) ? Action.reduce(reductions[Action.reduceProduction(act)]) : act;
+    }
+}
@@ -0,0 +1,165 @@
+package java_cup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A cache of the generated tables, keyed by the structural skeleton of the grammar: the symbols, the
+ * productions and the precedences, without the action code and the types. A grammar whose skeleton did not change
+ * since the tables were cached gets the same state machine and the same tables, only its {@code Parser.java} has to
+ * be written again. With the states minimized, the skeleton also has which productions share their code, since the
+ * states reducing them the same way are merged.
+ * <p>
+ * The most recently used entries are kept in memory, for the compilations of a long-lived compiler. With a
+ * directory, every entry is also a file of its own, written to a temporary file first and then moved in place, so
+ * concurrent generations may share a cache directory.
+ */
+class TableCache {
+
+    private static final String FORMAT = "java_cup.TableCache/3";
+    private static final int MEMORY_ENTRIES = 32;
+
+    private final File dir;
+    private final Map<String, Entry> memory = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MEMORY_ENTRIES;
+        }
+    };
+
+    /**
+     * @param dir the directory of the cache, null to keep the entries in memory only
+     */
+    TableCache(File dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * The tables of one grammar skeleton, together with what building them reported.
+     *
+     * @param warnings the conflicts and the productions never reduced, in the order they were reported
+     */
+    record Entry(
+            int states,
+            int conflicts,
+            int notReduced,
+            List<String> warnings,
+            byte[] productionData,
+            byte[] actionData,
+            byte[] reduceData,
+            byte[] classData
+    ) implements Serializable {
+    }
+
+    /**
+     * The SHA-256 of the skeleton of the grammar of the given context, as hex.
+     */
+    static String key(GrammarContext context) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new InternalException("SHA-256 is not available");
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(FORMAT);
+            out.writeUTF(Main.VERSION);
+            out.writeInt(context.terminals.size());
+            for (Terminal term : context.terminals) {
+                out.writeUTF(term.name);
+                out.writeInt(term.precedence());
+                out.writeInt(term.precedenceSide());
+            }
+            out.writeInt(context.nonTerminals.size());
+            for (NonTerminal nt : context.nonTerminals) {
+                out.writeUTF(nt.name);
+            }
+            out.writeInt(context.productions.size());
+            for (Production prod : context.productions) {
+                out.writeInt(prod.lhs.sym().id);
+                out.writeInt(prod.precedence);
+                out.writeInt(prod.rhs.length);
+                for (ProductionItem item : prod.rhs) {
+                    final symbol sym = item.sym();
+                    out.writeInt(sym instanceof Terminal ? sym.id : ~sym.id);
+                }
+            }
+            out.writeInt(context.startProduction.id);
+            // the tables differ with the states merged, and with the productions they may merge by
+            out.writeBoolean(context.options.minimizeStates);
+            if (context.options.minimizeStates) {
+                for (int same : StateMinimizer.sameReductions(context.productions)) {
+                    out.writeInt(same);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return HexFormat.of().formatHex(digest.digest(bytes.toByteArray()));
+    }
+
+    /**
+     * The entry of the given key, null if there is none or it can not be read.
+     */
+    Entry load(String key) {
+        synchronized (memory) {
+            final Entry entry = memory.get(key);
+            if (entry != null || dir == null) {
+                return entry;
+            }
+        }
+        final File file = file(key);
+        if (!file.isFile()) {
+            return null;
+        }
+        final Entry entry;
+        try (ObjectInputStream in = new ObjectInputStream(Files.newInputStream(file.toPath()))) {
+            entry = (Entry) in.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            return null;
+        }
+        synchronized (memory) {
+            memory.put(key, entry);
+        }
+        return entry;
+    }
+
+    void store(String key, Entry entry) throws IOException {
+        synchronized (memory) {
+            memory.put(key, entry);
+        }
+        if (dir == null) {
+            return;
+        }
+        Files.createDirectories(dir.toPath());
+        final Path temp = Files.createTempFile(dir.toPath(), key, ".tmp");
+        try {
+            try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(temp))) {
+                out.writeObject(entry);
+            }
+            Files.move(temp, file(key).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private File file(String key) {
+        return new File(dir, key + ".tables");
+    }
+}
@@ -0,0 +1,101 @@
+package java_cup;
+
+/**
+ * The element type a table of the parser is written with, the narrowest one that holds all of its values: bytes for
+ * the tables of small grammars, ints for the ones with more than 32767 states, productions or symbols. The parser
+ * picks its lookups by the type of the arrays it reads.
+ */
+enum TableWidth {
+    BYTE(Byte.MIN_VALUE, Byte.MAX_VALUE),
+    SHORT(Short.MIN_VALUE, Short.MAX_VALUE),
+    INT(Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+    private final int min;
+    private final int max;
+
+    TableWidth(int min, int max) {
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * The narrowest width of the given rows, the null ones are left out.
+     */
+    static TableWidth of(int[][] rows) {
+        int min = 0;
+        int max = 0;
+        for (int[] row : rows) {
+            if (row != null) {
+                for (int value : row) {
+                    min = Math.min(min, value);
+                    max = Math.max(max, value);
+                }
+            }
+        }
+        for (TableWidth width : values()) {
+            if (min >= width.min && max <= width.max) {
+                return width;
+            }
+        }
+        return INT;
+    }
+
+    /**
+     * The given rows as arrays of this width, the null rows stay null.
+     *
+     * @throws InternalException if a value does not fit
+     */
+    Object narrow(int[][] rows) {
+        return switch (this) {
+            case BYTE -> {
+                final byte[][] table = new byte[rows.length][];
+                for (int i = 0; i < rows.length; i++) {
+                    table[i] = rows[i] != null ? (byte[]) narrow(rows[i]) : null;
+                }
+                yield table;
+            }
+            case SHORT -> {
+                final short[][] table = new short[rows.length][];
+                for (int i = 0; i < rows.length; i++) {
+                    table[i] = rows[i] != null ? (short[]) narrow(rows[i]) : null;
+                }
+                yield table;
+            }
+            case INT -> rows;
+        };
+    }
+
+    /**
+     * The given values as an array of this width.
+     *
+     * @throws InternalException if a value does not fit
+     */
+    Object narrow(int[] values) {
+        switch (this) {
+            case BYTE -> {
+                final byte[] row = new byte[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    row[i] = (byte) check(values[i]);
+                }
+                return row;
+            }
+            case SHORT -> {
+                final short[] row = new short[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    row[i] = (short) check(values[i]);
+                }
+                return row;
+            }
+            default -> {
+                return values;
+            }
+        }
+    }
+
+    private int check(int value) {
+        if (value < min || value > max) {
+            throw new InternalException("The table value " + value + " does not fit in a " + name().toLowerCase());
+        }
+        return value;
+    }
+}
@@ -1,47 +1,14 @@
 package java_cup;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * This class represents a Terminal symbol in the grammar.
  */
 public class Terminal extends symbol {
 
-    public static final List<Terminal> ALL = new ArrayList<>();
-
-    public static Terminal EOF;
-    public static Terminal ERROR;
-
-    public static void clear() {
-        ALL.clear();
-        EOF = Terminal.create("EOF", null);
-        ERROR = Terminal.create("ERROR", null);
-        ERROR.use();
-    }
-
-    public static Terminal get(int index) {
-        return ALL.get(index);
-    }
-
-    public static int size() {
-        return ALL.size();
-    }
-
-    public static Terminal create(String nm) {
-        return create(nm, null);
-    }
-
-    public static Terminal create(String name, String type) {
-        Terminal terminal = new Terminal(ALL.size(), name, type);
-        ALL.add(terminal);
-        return terminal;
-    }
-
     private int _precedence;
     private int _precedenceSide;
 
-    private Terminal(int id, String nm, String tp) {
+    Terminal(int id, String nm, String tp) {
         super(id, nm, tp);
         this._precedenceSide = Assoc.NONASSOC;
         this._precedence = Assoc.NONE;
@@ -59,4 +26,9 @@ public class Terminal extends symbol {
     public int precedenceSide() {
         return _precedenceSide;
     }
+
+    @Override
+    public int hashCode() {
+        return id << 1;
+    }
 }
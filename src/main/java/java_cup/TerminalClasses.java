@@ -0,0 +1,112 @@
+package java_cup;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Groups the terminals with the same action in every state into classes, like the keywords a grammar only uses as
+ * names, and indexes the action rows by class instead of by terminal. The parser maps the id of a token to its class
+ * once, then every row it looks the token up in has one entry by class.
+ * <p>
+ * The classes are numbered in the order of their first terminal, so {@code EOF} stays in class zero. The terminals no
+ * state has an action for end up in one class with no entries.
+ */
+final class TerminalClasses {
+
+    private TerminalClasses() {
+    }
+
+    /**
+     * The action rows indexed by class.
+     *
+     * @param actions the action rows, pairs of class and encoded action
+     * @param classes the class of every terminal
+     * @param classCount the count of classes
+     */
+    record Result(
+            int[][] actions,
+            int[] classes,
+            int classCount
+    ) {
+    }
+
+    /**
+     * The actions of a terminal in the states, pairs of state and encoded action, as the key of its class.
+     */
+    private record Column(int[] data) {
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Column column && Arrays.equals(data, column.data);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(data);
+        }
+    }
+
+    static Result classify(int[][] actions, int terminals) {
+        final int[] sizes = new int[terminals];
+        for (int[] row : actions) {
+            for (int i = 0; i < row.length; i += 2) {
+                sizes[row[i]] += 2;
+            }
+        }
+        final int[][] columns = new int[terminals][];
+        for (int t = 0; t < terminals; t++) {
+            columns[t] = new int[sizes[t]];
+            sizes[t] = 0;
+        }
+        for (int state = 0; state < actions.length; state++) {
+            final int[] row = actions[state];
+            for (int i = 0; i < row.length; i += 2) {
+                final int[] column = columns[row[i]];
+                column[sizes[row[i]]++] = state;
+                column[sizes[row[i]]++] = row[i + 1];
+            }
+        }
+
+        final Map<Column, Integer> ids = new HashMap<>();
+        final int[] classes = new int[terminals];
+        for (int t = 0; t < terminals; t++) {
+            final Column column = new Column(columns[t]);
+            Integer id = ids.get(column);
+            if (id == null) {
+                ids.put(column, id = ids.size());
+            }
+            classes[t] = id;
+        }
+
+        final int[][] classActions = new int[actions.length][];
+        for (int state = 0; state < actions.length; state++) {
+            classActions[state] = classRow(actions[state], classes);
+        }
+        return new Result(classActions, classes, ids.size());
+    }
+
+    /**
+     * The given row by class, sorted by class for the binary search of the parser. The terminals of a class have the
+     * same action, so the entries of a class after its first one are dropped.
+     */
+    private static int[] classRow(int[] row, int[] classes) {
+        final long[] entries = new long[row.length >> 1];
+        for (int i = 0; i < row.length; i += 2) {
+            entries[i >> 1] = (long) classes[row[i]] << 32 | (row[i + 1] & 0xFFFFFFFFL);
+        }
+        Arrays.sort(entries);
+        int count = 0;
+        for (int i = 0; i < entries.length; i++) {
+            if (i == 0 || entries[i] != entries[i - 1]) {
+                entries[count++] = entries[i];
+            }
+        }
+        final int[] classRow = new int[count << 1];
+        for (int i = 0; i < count; i++) {
+            classRow[i << 1] = (int) (entries[i] >>> 32);
+            classRow[(i << 1) + 1] = (int) entries[i];
+        }
+        return classRow;
+    }
+}
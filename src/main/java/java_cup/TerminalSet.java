@@ -3,18 +3,33 @@ package java_cup;
 import java.util.BitSet;
 
 /**
- * A set of terminals.
+ * A set of terminals. The operations taking another set read it through {@link #bits()}, so a subclass may keep its
+ * terminals elsewhere, like the lookaheads of a {@link LookaheadStore}.
  */
 public class TerminalSet {
 
     protected BitSet datas;
 
     public TerminalSet() {
-        datas = new BitSet(Terminal.size());
+        datas = new BitSet();
     }
 
     public TerminalSet(TerminalSet other) {
-        datas = (BitSet) other.datas.clone();
+        datas = (BitSet) other.bits().clone();
+    }
+
+    /**
+     * For the subclasses keeping their terminals elsewhere.
+     */
+    protected TerminalSet(BitSet datas) {
+        this.datas = datas;
+    }
+
+    /**
+     * The terminals of the set, as a bit set not to be changed.
+     */
+    protected BitSet bits() {
+        return datas;
     }
 
     /**
@@ -33,6 +48,29 @@ public class TerminalSet {
         return datas.get(indx);
     }
 
+    /**
+     * The count of terminals in the set.
+     */
+    public int size() {
+        return datas.cardinality();
+    }
+
+    /**
+     * The id of the first terminal in the set from the given id on, -1 if there is none.
+     */
+    public int next(int from) {
+        return datas.nextSetBit(from);
+    }
+
+    /**
+     * The terminals in both this set and another, as a new set.
+     */
+    public TerminalSet intersection(TerminalSet other) {
+        final TerminalSet result = new TerminalSet(this);
+        result.datas.and(other.bits());
+        return result;
+    }
+
     /**
      * Determine if this set is an (improper) subset of another.
      *
@@ -41,13 +79,13 @@ public class TerminalSet {
     public boolean isSubOf(TerminalSet other) {
 
         /* make a copy of the other set */
-        BitSet copy_other = (BitSet) other.datas.clone();
+        BitSet copy_other = (BitSet) other.bits().clone();
 
         /* and or in */
         copy_other.or(datas);
 
         /* if it hasn't changed, we were a subset */
-        return copy_other.equals(other.datas);
+        return copy_other.equals(other.bits());
     }
 
     /**
@@ -75,7 +113,7 @@ public class TerminalSet {
         BitSet copy = (BitSet) datas.clone();
 
         /* or in the other set */
-        datas.or(other.datas);
+        datas.or(other.bits());
 
         /* changed if we are not the same as the copy */
         return !datas.equals(copy);
@@ -87,7 +125,7 @@ public class TerminalSet {
      * @param other the other set in question.
      */
     public boolean intersects(TerminalSet other) {
-        return datas.intersects(other.datas);
+        return datas.intersects(other.bits());
     }
 
     @Override
@@ -98,28 +136,36 @@ public class TerminalSet {
         if (!(other instanceof TerminalSet)) {
             return false;
         }
-        return datas.equals(((TerminalSet) other).datas);
+        return bits().equals(((TerminalSet) other).bits());
     }
 
     @Override
     public int hashCode() {
-        return this.datas.hashCode();
+        return bits().hashCode();
     }
 
+    /**
+     * The ids of the terminals, like {@code {0,3,5}}.
+     */
     @Override
     public String toString() {
+        return bits().toString();
+    }
+
+    /**
+     * The names of the terminals, like {@code {EOF,SEMI,ID}}.
+     */
+    public String toString(GrammarContext context) {
         StringBuilder result = new StringBuilder();
         result.append('{');
         boolean comma_flag = false;
-        for (int t = 0; t < Terminal.size(); t++) {
-            if (datas.get(t)) {
-                if (comma_flag) {
-                    result.append(',');
-                } else {
-                    comma_flag = true;
-                }
-                result.append(Terminal.get(t).name);
+        for (int t = next(0); t >= 0; t = next(t + 1)) {
+            if (comma_flag) {
+                result.append(',');
+            } else {
+                comma_flag = true;
             }
+            result.append(context.terminal(t).name);
         }
         return result.append('}').toString();
     }
@@ -3,7 +3,7 @@ package java_cup.core;
 
 import java_cup.*;
 
-import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -17,12 +17,25 @@ abstract class AbstractParser extends BaseParser {
     private final HashMap<String, symbol> symbols = new HashMap<>();
     private final Map<String, Integer> insideProdNTKeyMap = new HashMap<>();
 
+    /**
+     * The generation the grammar is parsed into, the actions create the symbols and productions in it.
+     */
+    GrammarContext context;
     private NonTerminal startSymbol;
     private int _cur_prec = 0;
 
-    public void parse() throws Exception {
-        declearSymbol(Terminal.ERROR);
-        parse(new Lexer(new InputStreamReader(System.in)));
+    public void parse(GrammarContext context, Reader in) throws Exception {
+        this.context = context;
+        declearSymbol(context.ERROR);
+        final Lexer lexer = new Lexer(in);
+        lexer.setErrorHandler(context::error);
+        parse(lexer);
+    }
+
+    @Override
+    void syntaxError(String message) {
+        super.syntaxError(message);
+        context.error(message);
     }
 
     ProductionItem createProductionItem(String sym, String label) {
@@ -45,14 +58,14 @@ abstract class AbstractParser extends BaseParser {
         NonTerminal result = (NonTerminal) this.symbols.get(name);
         if (result == null) {
             //create NonTerminal
-            result = NonTerminal.create(name, "java.util.List<" + compSym.type + ">");
+            result = context.createNonTerminal(name, "java.util.List<" + compSym.type + ">");
             declearSymbol(result);
             //create Production for nt
-            Production.create(result, new Object[]{new ProductionItem(compSym), "var list = new java.util.ArrayList<>(); list.add(myStack.peek(0).value); yield list;"});
+            context.createProduction(result, new Object[]{new ProductionItem(compSym), "var list = new java.util.ArrayList<>(); list.add(myStack.peek(0).value); yield list;"});
             if (split != null) {
-                Production.create(result, new Object[]{new ProductionItem(result), new ProductionItem(getSymbol(split)), new ProductionItem(compSym), "var list = (java.util.List<Object>) (myStack.peek(2).value); list.add(myStack.peek(0).value); yield list;"});
+                context.createProduction(result, new Object[]{new ProductionItem(result), new ProductionItem(getSymbol(split)), new ProductionItem(compSym), "var list = (java.util.List<Object>) (myStack.peek(2).value); list.add(myStack.peek(0).value); yield list;"});
             } else {
-                Production.create(result, new Object[]{new ProductionItem(result), new ProductionItem(compSym), "var list = (java.util.List<Object>) (myStack.peek(1).value); list.add(myStack.peek(0).value); yield list;"});
+                context.createProduction(result, new Object[]{new ProductionItem(result), new ProductionItem(compSym), "var list = (java.util.List<Object>) (myStack.peek(1).value); list.add(myStack.peek(0).value); yield list;"});
             }
         }
         return result;
@@ -63,11 +76,11 @@ abstract class AbstractParser extends BaseParser {
         NonTerminal result = (NonTerminal) this.symbols.get(name);
         if (result == null) {
             //create NonTerminal
-            result = NonTerminal.create(name, compSym.type);
+            result = context.createNonTerminal(name, compSym.type);
             declearSymbol(result);
             //create Production for nt
-            Production.create(result, new Object[]{"yield null;"});
-            Production.create(result, new Object[]{new ProductionItem(compSym), "yield myStack.peek(0).value;"});
+            context.createProduction(result, new Object[]{"yield null;"});
+            context.createProduction(result, new Object[]{new ProductionItem(compSym), "yield myStack.peek(0).value;"});
         }
         return result;
     }
@@ -110,10 +123,10 @@ abstract class AbstractParser extends BaseParser {
                 }
             }
 
-            result = NonTerminal.create(name, type);
+            result = context.createNonTerminal(name, type);
             declearSymbol(result);
             for (var rhs : rhses) {
-                Production.create(result, rhs.toArray());
+                context.createProduction(result, rhs.toArray());
             }
         }
         return result;
@@ -121,13 +134,13 @@ abstract class AbstractParser extends BaseParser {
 
     void declearNonTerminals(List<String> names, String type) {
         for (String name : names) {
-            declearSymbol(NonTerminal.create(name, type));
+            declearSymbol(context.createNonTerminal(name, type));
         }
     }
 
     void declearTerminals(List<String> names, String type) {
         for (String name : names) {
-            declearSymbol(Terminal.create(name, type));
+            declearSymbol(context.createTerminal(name, type));
         }
     }
 
@@ -164,10 +177,10 @@ abstract class AbstractParser extends BaseParser {
     private void registStartNonTerminal(String name) {
         startSymbol = getNonTerminal(name);
         // build start Production
-        NonTerminal startNonTerminal = NonTerminal.create("$START", null);
+        NonTerminal startNonTerminal = context.createNonTerminal("$START", null);
         declearSymbol(startNonTerminal);
-        Main.startProduction = Production.create(startNonTerminal,
-                new Object[]{createProductionItem(startSymbol, null), createProductionItem(Terminal.EOF, null), "this.goonParse = false; yield myStack.peek(1).value;"});
+        context.setStartProduction(context.createProduction(startNonTerminal,
+                new Object[]{createProductionItem(startSymbol, null), createProductionItem(context.EOF, null), "this.goonParse = false; yield myStack.peek(1).value;"}));
     }
 
     void createProduction(String lhs, List<List<Object>> rhses) {
@@ -176,7 +189,7 @@ abstract class AbstractParser extends BaseParser {
         }
         NonTerminal leftSymbol = getNonTerminal(lhs);
         for (var rhs : rhses) {
-            Production.create(leftSymbol, rhs.toArray());
+            context.createProduction(leftSymbol, rhs.toArray());
         }
     }
 
@@ -2,7 +2,10 @@
 package java_cup.core;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  *
@@ -10,130 +13,340 @@ import java.io.ObjectInputStream;
  */
 abstract class BaseParser {
 
-    private static final short[][] PRODUCTION_TABLE = loadData("Production");
-    private static final short[][] ACTION_TABLE = loadData("Action");
-    private static final short[][] REDUCE_TABLE = loadData("Reduce");
+    static final Table PRODUCTION_TABLE = loadData("Production");
+    static final Table ACTION_TABLE = loadData("Action");
+    static final Table REDUCE_TABLE = loadData("Reduce");
+    /**
+     * The class of every terminal, the action rows are indexed by class. Null for tables indexed by terminal.
+     */
+    static final int[] CLASS_TABLE = loadClasses();
+
+    /**
+     * Count of tokens that must be shifted after an error before new errors are reported again.
+     */
+    private static final int RECOVER_SHIFTS = 3;
 
     final Stack<Symbol> tokenStack = new Stack<>(24);
     boolean goonParse;
 
+    /**
+     * Syntax errors collected by the last parse, bounded by {@link #maxSyntaxErrors}.
+     */
+    final List<String> syntaxErrors = new ArrayList<>();
+    int maxSyntaxErrors = 100;
+    private int recovering;
+
+    /**
+     * The counters of this parser, null if it is not instrumented.
+     */
+    ParseMetrics metrics = ParseMetrics.ENABLED_BY_DEFAULT ? new ParseMetrics() : null;
+
+    /**
+     * Whether the results of the reductions get the position of their first symbol, see {@link #positions()}.
+     */
+    final boolean keepPositions = positions();
+
     abstract Object doAction(int actionId) throws Exception;
 
+    /**
+     * Whether the actions read the positions of the results of reductions. The generated parser overrides it if none
+     * does, then the results are left without a position, the tokens keep theirs for the syntax errors.
+     */
+    boolean positions() {
+        return true;
+    }
+
     Symbol parse(final Lexer lexer) throws Exception {
+        start();
+        while (feed(lexer.nextToken())) {
+            // pull the next token
+        }
+        return tokenStack.peek();
+    }
 
-        int act;
-        Symbol currentToken;
-        Symbol currentSymbol;
+    /**
+     * Starts a push parse, the tokens are then handed in one by one through {@link #feed(Symbol)}.
+     */
+    void start() {
         final Stack<Symbol> stack = this.tokenStack;
         stack.clear();
+        syntaxErrors.clear();
+        recovering = 0;
+        if (metrics != null) {
+            metrics.begin();
+        }
 
         //Start Symbol
-        currentSymbol = new Symbol(0, -1, -1, null);
-        currentSymbol.state = 0;
-        stack.push(currentSymbol);
+        final Symbol startSymbol = new Symbol(0, null);
+        startSymbol.state = 0;
+        stack.push(startSymbol);
+
+        goonParse = true;
+    }
 
-        final short[][] actionTable = ACTION_TABLE;
-        final short[][] reduceTable = REDUCE_TABLE;
-        final short[][] productionTable = PRODUCTION_TABLE;
+    /**
+     * Pushes the next token. Performs the reductions it allows and shifts it, then returns with the stack kept
+     * until the next token is fed. Once {@code EOF} is shifted it is also used as the following lookahead, so
+     * feeding {@code EOF} completes the parse.
+     *
+     * @param token the next token
+     * @return true if more tokens are needed, false once the input is accepted and {@link #result()} is available
+     */
+    boolean feed(Symbol token) throws Exception {
+        if (!goonParse) {
+            throw new IllegalStateException("Parse is not started or already finished");
+        }
 
-        currentToken = lexer.nextToken();
+        int act;
+        Symbol currentSymbol;
+        final Stack<Symbol> stack = this.tokenStack;
+        final ParseMetrics myMetrics = this.metrics;
+        final int tokenClass = terminalClass(token.id);
 
-        /* continue until we are told to stop */
-        goonParse = true;
+        currentSymbol = stack.peek();
         do {
 
             /* look up action out of the current state with the current input */
-            act = getAction(actionTable[currentSymbol.state], currentToken.id);
+            act = getAction(currentSymbol.state, tokenClass);
+            if (myMetrics != null) {
+                myMetrics.action(currentSymbol.state, tokenClass);
+            }
 
             /* decode the action -- > 0 encodes shift */
             if (act > 0) {
                 /* shift to the encoded state by pushing it on the _stack */
-                currentToken.state = act - 1;
-                stack.push(currentSymbol = currentToken);
+                token.state = act - 1;
+                stack.push(currentSymbol = token);
+                if (myMetrics != null) {
+                    myMetrics.shift(stack.size());
+                }
+                if (recovering != 0) {
+                    recovering--;
+                }
 
-                /* advance to the next Symbol */
-                currentToken = lexer.nextToken();
+                /* wait for the next Symbol, there is none after EOF */
+                if (token.id != Tokens.EOF) {
+                    return true;
+                }
             } else if (act < 0) {
                 /* if its less than zero, then it encodes a reduce action */
-                act = (-act) - 1;
-                final int symId, handleSize;
-                final Object result = doAction(act);
-                final short[] row;
-                symId = (row = productionTable[act])[0];
-                handleSize = row[1];
-                if (handleSize == 0) {
-                    currentSymbol = new Symbol(symId, -1, -1, result);
-                } else {
-                    //position based on left
-                    currentSymbol = new Symbol(symId, result, stack.peek(handleSize - 1));
-                    //pop the handle
-                    stack.pops(handleSize);
-                }
-
-                /* look up the state to go to from the one popped back to */
-                /* shift to that state */
-                currentSymbol.state = getReduce(reduceTable[stack.peek().state], symId);
-                stack.push(currentSymbol);
-
+                currentSymbol = reduce((-act) - 1);
             } else {
                 //act == 0
-                throw new RuntimeException("Syntax error at line " + lexer.getLine() + " column " + lexer.getColumn());
+                if (!recover(token)) {
+                    return true;
+                }
+                currentSymbol = stack.peek();
             }
         } while (goonParse);
 
-        return stack.peek();
+        if (myMetrics != null) {
+            myMetrics.end(true, syntaxErrors.size());
+        }
+        return false;
     }
 
-    private static short getAction(final short[] row, final int sym) {
-        final int len;
-        int probe;
-        /* linear search if we are < 10 entries, otherwise binary search */
-        if ((len = row.length) < 20) {
-            for (probe = 0; probe < len; probe++) {
-                if (row[probe++] == sym) {
-                    return row[probe];
-                }
+    /**
+     * Performs the reductions the given lookahead allows, without shifting it, while the stack is deeper than the
+     * given floor.
+     */
+    void settle(Symbol lookahead, int floor) throws Exception {
+        final int lookaheadClass = terminalClass(lookahead.id);
+        while (goonParse && tokenStack.size() > floor) {
+            final int state = tokenStack.peek().state;
+            final int act = getAction(state, lookaheadClass);
+            if (metrics != null) {
+                metrics.action(state, lookaheadClass);
             }
+            if (act >= 0) {
+                break;
+            }
+            reduce((-act) - 1);
+        }
+    }
+
+    /**
+     * Reduces with the given production and pushes the result.
+     */
+    private Symbol reduce(final int production) throws Exception {
+        final Stack<Symbol> stack = this.tokenStack;
+        final int symId, handleSize;
+        final Object result;
+        try {
+            result = doAction(production);
+        } catch (Throwable e) {
+            // the parse ends with the action that failed
+            if (metrics != null) {
+                metrics.end(false, syntaxErrors.size());
+            }
+            throw e;
+        }
+        final Symbol currentSymbol;
+        symId = PRODUCTION_TABLE.get(production, 0);
+        handleSize = PRODUCTION_TABLE.get(production, 1);
+        if (handleSize == 0 || !keepPositions) {
+            currentSymbol = new Symbol(symId, result);
         } else {
-            int first, last;
-            first = 0;
-            last = ((len - 1) >> 1);
-
-            int probe_2;
-            while (first <= last) {
-                probe = (first + last) >> 1;
-                probe_2 = probe << 1;
-                if (sym == row[probe_2]) {
-                    return row[probe_2 + 1];
-                } else if (sym > row[probe_2]) {
-                    first = probe + 1;
-                } else {
-                    last = probe - 1;
-                }
+            //position based on left
+            currentSymbol = new Symbol.Positioned(symId, result, stack.peek(handleSize - 1));
+        }
+        //pop the handle
+        stack.pops(handleSize);
+
+        /* look up the state to go to from the one popped back to */
+        /* shift to that state */
+        currentSymbol.state = getReduce(stack.peek().state, symId);
+        stack.push(currentSymbol);
+        if (metrics != null) {
+            metrics.reduce(production);
+            metrics.gotoLookup(stack.size());
+        }
+        return currentSymbol;
+    }
+
+    /**
+     * The accepted result of a push parse.
+     */
+    Symbol result() {
+        if (goonParse) {
+            throw new IllegalStateException("Parse is not finished");
+        }
+        return tokenStack.peek();
+    }
+
+    /**
+     * Counts the given tokens as shifted, by another parser parsing a part of the input on behalf of this one, for the
+     * syntax errors not reported after a recovery.
+     */
+    void shifted(int count) {
+        recovering = Math.max(0, recovering - count);
+    }
+
+    /**
+     * Called for every syntax error reported during a parse.
+     *
+     * @param message the error message
+     */
+    void syntaxError(String message) {
+        syntaxErrors.add(message);
+    }
+
+    /**
+     * yacc style error recovery. Reports the error, pops the stack to the nearest state that can shift
+     * {@code ERROR}, shifts an {@code ERROR} symbol there, and then discards tokens until one of them is acceptable.
+     * Errors found before {@link #RECOVER_SHIFTS} tokens are shifted again are not reported.
+     *
+     * @return false if the token is discarded, true to go on with it
+     */
+    private boolean recover(final Symbol token) {
+        if (recovering == RECOVER_SHIFTS) {
+            // the ERROR symbol is on the stack, discard the token
+            if (token.id == Tokens.EOF) {
+                throw abort(abortMessage());
+            }
+            return false;
+        }
+        if (recovering == 0) {
+            syntaxError("Syntax error at line " + token.line() + " column " + token.column());
+            if (syntaxErrors.size() >= maxSyntaxErrors) {
+                throw abort("Too many syntax errors, giving up after: " + abortMessage());
+            }
+        }
+
+        final Stack<Symbol> stack = this.tokenStack;
+        final int errorClass = terminalClass(Tokens.ERROR);
+        int act;
+        while ((act = getAction(stack.peek().state, errorClass)) <= 0) {
+            if (stack.size() == 1) {
+                throw abort(abortMessage());
             }
+            stack.pop();
         }
-        //error
-        return 0;
+        final Symbol error = new Symbol.Positioned(Tokens.ERROR, token.line(), token.column(), null);
+        error.state = act - 1;
+        stack.push(error);
+        recovering = RECOVER_SHIFTS;
+        return true;
     }
 
-    private static short getReduce(final short[] row, int sym) {
-        if (row != null) {
-            for (int probe = 0, len = row.length; probe < len; probe++) {
-                if (row[probe++] == sym) {
-                    return row[probe];
-                }
+    private RuntimeException abort(String message) {
+        if (metrics != null) {
+            metrics.end(false, syntaxErrors.size());
+        }
+        return new RuntimeException(message);
+    }
+
+    private String abortMessage() {
+        return syntaxErrors.isEmpty()
+                ? "Unable to recover from syntax error"
+                : syntaxErrors.get(syntaxErrors.size() - 1);
+    }
+
+    /**
+     * The class of the given terminal, which the action rows are indexed by.
+     */
+    static int terminalClass(final int sym) {
+        final int[] classes = CLASS_TABLE;
+        return classes != null ? classes[sym] : sym;
+    }
+
+    /**
+     * The action of the given state under the given terminal class, see {@link #terminalClass(int)}, zero for an
+     * error.
+     */
+    static int getAction(final int state, final int sym) {
+        return ACTION_TABLE.find(state, sym, 0);
+    }
+
+    /**
+     * The state to go to from the given state with the given non terminal, -1 for an error.
+     */
+    static int getReduce(final int state, final int sym) {
+        return REDUCE_TABLE.scan(state, sym, -1);
+    }
+
+    static Table loadData(String name) {
+        return Table.of(readData(name, true));
+    }
+
+    /**
+     * The class of every terminal as ints, whatever width it is written with, null if there is no class table.
+     */
+    private static int[] loadClasses() {
+        final Object data = readData("Class", false);
+        if (data == null) {
+            return null;
+        }
+        final int[] classes;
+        if (data instanceof byte[] values) {
+            classes = new int[values.length];
+            for (int i = 0; i < values.length; i++) {
+                classes[i] = values[i];
+            }
+        } else if (data instanceof short[] values) {
+            classes = new int[values.length];
+            for (int i = 0; i < values.length; i++) {
+                classes[i] = values[i];
             }
+        } else {
+            classes = (int[]) data;
         }
-        //error
-        return -1;
+        return classes;
     }
 
-    private static short[][] loadData(String name) {
+    /**
+     * Reads the table of the given resource, null if it is not required and there is none.
+     */
+    private static Object readData(String name, boolean required) {
+        final InputStream stream = Thread.currentThread().getContextClassLoader()
+                .getResourceAsStream("java_cup/core/Parser$" + name + ".data");
+        if (stream == null && !required) {
+            return null;
+        }
         ObjectInputStream in = null;
         try {
-            in = new ObjectInputStream(Thread.currentThread().getContextClassLoader()
-                    .getResourceAsStream("java_cup/core/Parser$" + name + ".data"));
-            return (short[][]) in.readObject();
+            in = new ObjectInputStream(stream);
+            return in.readObject();
         } catch (Exception e) {
             throw new Error(e);
         } finally {
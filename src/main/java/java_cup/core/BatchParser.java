@@ -0,0 +1,202 @@
+// Copyright (c) 2013-2014, Webit Team. All Rights Reserved.
+package java_cup.core;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Parses batches of independent inputs concurrently.
+ * <p>
+ * The parse tables are static and shared, only the parsers and lexers are per task. They are kept in a pool of
+ * {@code parallelism} pairs and reused by the tasks, so any executor works: a bounded pool, or on runtimes that have
+ * them, a virtual thread per task executor. The actions of the parser must be safe to run on several parser
+ * instances at once.
+ *
+ * @author zqq
+ */
+final class BatchParser implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private final boolean ownExecutor;
+    private final BlockingQueue<Worker> workers;
+
+    /**
+     * Creates a batch parser running on its own fixed thread pool.
+     */
+    BatchParser(Supplier<? extends BaseParser> factory, int parallelism) {
+        this(factory, Executors.newFixedThreadPool(parallelism), parallelism, true);
+    }
+
+    /**
+     * Creates a batch parser running on the given executor, which is not shut down by {@link #close()}.
+     */
+    BatchParser(Supplier<? extends BaseParser> factory, ExecutorService executor, int parallelism) {
+        this(factory, executor, parallelism, false);
+    }
+
+    private BatchParser(Supplier<? extends BaseParser> factory, ExecutorService executor, int parallelism,
+                        boolean ownExecutor) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        this.executor = executor;
+        this.ownExecutor = ownExecutor;
+        this.workers = new ArrayBlockingQueue<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            workers.add(new Worker(factory.get()));
+        }
+    }
+
+    /**
+     * Parses all inputs and waits for them.
+     *
+     * @return the results, in input order, and the statistics of the batch
+     */
+    Batch parse(List<? extends Reader> inputs) throws InterruptedException {
+        final long startTime = System.nanoTime();
+        final List<Future<Result>> futures = new ArrayList<>(inputs.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            final int index = i;
+            final Reader input = inputs.get(i);
+            futures.add(executor.submit(() -> parse(index, input)));
+        }
+
+        final List<Result> results = new ArrayList<>(futures.size());
+        for (Future<Result> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                // parse() catches parser failures, anything else is a bug
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        return new Batch(Collections.unmodifiableList(results),
+                Stats.of(results, System.nanoTime() - startTime));
+    }
+
+    private Result parse(int index, Reader input) throws InterruptedException {
+        final Worker worker = workers.take();
+        final long startTime = System.nanoTime();
+        try {
+            worker.lexer.yyreset(input);
+            final Symbol result = worker.parser.parse(worker.lexer);
+            return new Result(index, result.value, List.copyOf(worker.parser.syntaxErrors),
+                    System.nanoTime() - startTime);
+        } catch (Exception e) {
+            final List<String> errors = new ArrayList<>(worker.parser.syntaxErrors);
+            if (errors.isEmpty() || !errors.get(errors.size() - 1).equals(e.getMessage())) {
+                errors.add(String.valueOf(e.getMessage()));
+            }
+            return new Result(index, null, List.copyOf(errors), System.nanoTime() - startTime);
+        } finally {
+            workers.add(worker);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (ownExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    private static final class Worker {
+
+        final BaseParser parser;
+        final Lexer lexer = new Lexer(Reader.nullReader());
+
+        Worker(BaseParser parser) {
+            this.parser = parser;
+        }
+    }
+
+    /**
+     * The results of a batch.
+     */
+    record Batch(
+            List<Result> results,
+            Stats stats
+    ) {
+    }
+
+    /**
+     * The result of one input, the value is null if the input could not be parsed.
+     */
+    record Result(
+            int index,
+            Object value,
+            List<String> errors,
+            long nanos
+    ) {
+
+        boolean success() {
+            return errors.isEmpty();
+        }
+    }
+
+    /**
+     * Throughput and latency of a batch, in nanoseconds.
+     */
+    record Stats(
+            int inputs,
+            int failures,
+            long wallNanos,
+            long minNanos,
+            long medianNanos,
+            long p99Nanos,
+            long maxNanos,
+            long totalNanos
+    ) {
+
+        static Stats of(List<Result> results, long wallNanos) {
+            final long[] latencies = new long[results.size()];
+            int failures = 0;
+            long total = 0;
+            for (int i = 0; i < latencies.length; i++) {
+                final Result result = results.get(i);
+                latencies[i] = result.nanos();
+                total += result.nanos();
+                if (!result.success()) {
+                    failures++;
+                }
+            }
+            Arrays.sort(latencies);
+            final int len = latencies.length;
+            return new Stats(len, failures, wallNanos,
+                    len == 0 ? 0 : latencies[0],
+                    len == 0 ? 0 : latencies[len / 2],
+                    len == 0 ? 0 : latencies[Math.min(len - 1, (int) (len * 0.99))],
+                    len == 0 ? 0 : latencies[len - 1],
+                    total);
+        }
+
+        /**
+         * Inputs parsed per second of wall time.
+         */
+        double throughput() {
+            return wallNanos == 0 ? 0 : inputs * 1e9 / wallNanos;
+        }
+
+        long meanNanos() {
+            return inputs == 0 ? 0 : totalNanos / inputs;
+        }
+
+        @Override
+        public String toString() {
+            return inputs + " inputs (" + failures + " failed) in " + wallNanos / 1000_000 + " ms, "
+                    + String.format("%.1f", throughput()) + " inputs/s, latency min/median/p99/max "
+                    + minNanos / 1000 + '/' + medianNanos / 1000 + '/' + p99Nanos / 1000 + '/' + maxNanos / 1000
+                    + " us";
+        }
+    }
+}
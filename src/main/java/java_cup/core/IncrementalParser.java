@@ -0,0 +1,509 @@
+// Copyright (c) 2013-2014, Webit Team. All Rights Reserved.
+package java_cup.core;
+
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Incremental parsing mode for a {@link BaseParser}.
+ * <p>
+ * The last parse is kept as a tree of nodes, each one remembering the state it was pushed from and how many tokens
+ * it covers, together with the token buffer (end offsets, lexical states and how far the lexer read ahead for each
+ * token). After a text edit only the tokens whose scan touched the edit are scanned again, until the lexer is back
+ * in step with the old token stream, and the parse then shifts whole subtrees of the old tree wherever the current
+ * state matches the state the subtree was built from. So the work done by a reparse follows the size of the edit
+ * rather than the size of the document.
+ * <p>
+ * Reused subtrees keep their values, so the actions of the parser must not have side effects. A value handed on
+ * unchanged to an enclosing reduction (like the lists built by {@code []}, which are appended in place) is never
+ * reused, because the enclosing action may have changed it since. The tokens after an edit are moved to their new
+ * positions, but the symbols inside reused subtrees keep the positions of the parse they were created in. Syntax
+ * errors are not recovered from in this mode, a failed reparse just falls back to a full parse on the next edit.
+ *
+ * @author zqq
+ */
+final class IncrementalParser {
+
+    /**
+     * Max count of chars handed to the lexer per read, the granularity of the read ahead tracking.
+     */
+    private static final int READ_CHUNK = 128;
+
+    private final BaseParser parser;
+    private final Lexer lexer = new Lexer(Reader.nullReader());
+    private final Stack<Node> nodeStack = new Stack<>(24);
+    private final StringBuilder text = new StringBuilder();
+    private TextReader reader;
+
+    /* tokens and tree of the last parse */
+    private TokenBuffer buffer = new TokenBuffer(0);
+    private Node root;
+
+    /* statistics of the last parse */
+    private int scannedTokens;
+    private int shiftedTokens;
+    private int reusedNodes;
+
+    IncrementalParser(BaseParser parser) {
+        this.parser = parser;
+    }
+
+    /**
+     * Parses the whole text and keeps the result for later edits.
+     */
+    Symbol parse(CharSequence source) throws Exception {
+        text.setLength(0);
+        text.append(source);
+        return parseAll();
+    }
+
+    /**
+     * Applies a text edit and reparses.
+     *
+     * @param offset where the edit starts
+     * @param removed count of chars removed at offset
+     * @param inserted text inserted at offset
+     */
+    Symbol edit(int offset, int removed, String inserted) throws Exception {
+        if (offset < 0 || removed < 0 || offset + removed > text.length()) {
+            throw new IndexOutOfBoundsException("Edit out of range: " + offset + "+" + removed);
+        }
+        text.replace(offset, offset + removed, inserted);
+        if (root == null) {
+            return parseAll();
+        }
+
+        final TokenBuffer old = this.buffer;
+        final int[] ends = old.ends;
+        final int delta = inserted.length() - removed;
+        final int oldCount = old.count;
+
+        /* the first token the lexer read up to the edit for */
+        int damaged = Arrays.binarySearch(old.reaches, 0, oldCount, offset);
+        if (damaged < 0) {
+            damaged = -damaged - 1;
+        } else {
+            while (damaged > 0 && old.reaches[damaged - 1] == offset) {
+                damaged--;
+            }
+        }
+        final int prefixEnd = damaged;
+
+        /* scan again until the lexer ends a token where an old one ended, in the same lexical state */
+        final TokenBuffer scanned = new TokenBuffer(16);
+        final int base = startScan(prefixEnd);
+        final int editEnd = offset + inserted.length();
+        int suffixStart = oldCount;
+        int sync = damaged;
+        Symbol token;
+        do {
+            token = scanned.next(base);
+            final int end = scanned.ends[scanned.count - 1];
+            if (token.id != Tokens.EOF && end > editEnd) {
+                final int oldEnd = end - delta;
+                while (sync < oldCount && ends[sync] < oldEnd) {
+                    sync++;
+                }
+                if (sync < oldCount - 1 && ends[sync] == oldEnd
+                        && old.lexStates[sync] == scanned.lexStates[scanned.count - 1]) {
+                    suffixStart = sync + 1;
+                    break;
+                }
+            }
+        } while (token.id != Tokens.EOF);
+
+        /* new token buffer: unchanged prefix, scanned tokens, shifted suffix */
+        final int newSuffixStart = prefixEnd + scanned.count;
+        final TokenBuffer merged = new TokenBuffer(newSuffixStart + oldCount - suffixStart);
+        merged.copy(old, 0, prefixEnd, 0, 0, 0, -1);
+        merged.copy(scanned, 0, scanned.count, 0, 0, 0, -1);
+        if (suffixStart < oldCount) {
+            final int lineDelta = scanned.endLines[scanned.count - 1] - old.endLines[sync];
+            final int columnDelta = scanned.endColumns[scanned.count - 1] - old.endColumns[sync];
+            merged.copy(old, suffixStart, oldCount, delta, lineDelta, columnDelta, old.endLines[sync]);
+        }
+
+        final Node oldRoot = root;
+        buffer = merged;
+        return run(new Cursor(oldRoot, prefixEnd, suffixStart, newSuffixStart, oldCount), scanned.count);
+    }
+
+    /**
+     * Count of tokens scanned by the last parse.
+     */
+    int scannedTokens() {
+        return scannedTokens;
+    }
+
+    /**
+     * Count of tokens shifted one by one by the last parse.
+     */
+    int shiftedTokens() {
+        return shiftedTokens;
+    }
+
+    /**
+     * Count of subtrees of the previous parse shifted whole by the last parse.
+     */
+    int reusedNodes() {
+        return reusedNodes;
+    }
+
+    private Symbol parseAll() throws Exception {
+        final TokenBuffer scanned = new TokenBuffer(Math.max(16, buffer.count));
+        final int base = startScan(0);
+        while (scanned.next(base).id != Tokens.EOF) {
+            // scan all
+        }
+        buffer = scanned;
+        return run(null, scanned.count);
+    }
+
+    /**
+     * Restarts the lexer at the start of the given token.
+     *
+     * @return the offset of the token
+     */
+    private int startScan(int index) {
+        if (index == 0) {
+            lexer.reset(reader = new TextReader(text, 0), Lexer.YYINITIAL, 0, 0);
+            return 0;
+        }
+        final TokenBuffer old = this.buffer;
+        final int base = old.ends[index - 1];
+        lexer.reset(reader = new TextReader(text, base),
+                old.lexStates[index - 1], old.endLines[index - 1], old.endColumns[index - 1]);
+        return base;
+    }
+
+    private Symbol run(Cursor cursor, int scanned) throws Exception {
+        root = null;
+        scannedTokens = scanned;
+        shiftedTokens = 0;
+        reusedNodes = 0;
+
+        final BaseParser myParser = this.parser;
+        final Stack<Symbol> stack = myParser.tokenStack;
+        final Stack<Node> nodes = this.nodeStack;
+        final Symbol[] myTokens = this.buffer.tokens;
+        final int last = this.buffer.count - 1;
+        final Table productionTable = BaseParser.PRODUCTION_TABLE;
+
+        stack.clear();
+        nodes.clear();
+        final Symbol start = new Symbol(0, null);
+        start.state = 0;
+        stack.push(start);
+        nodes.push(null);
+
+        int pos = 0;
+        int act;
+        myParser.goonParse = true;
+        do {
+            final int state = stack.peek().state;
+
+            /* shift a whole subtree of the previous parse if there is one for this state */
+            final Node reuse;
+            if (cursor != null && (reuse = cursor.find(pos, state)) != null) {
+                final Symbol sym = reuse.symbol;
+                sym.state = BaseParser.getReduce(state, sym.id);
+                stack.push(sym);
+                nodes.push(reuse);
+                pos += reuse.tokens;
+                reusedNodes++;
+                continue;
+            }
+
+            /* EOF stays the lookahead once it is shifted */
+            final Symbol currentToken = myTokens[Math.min(pos, last)];
+            act = BaseParser.getAction(state, BaseParser.terminalClass(currentToken.id));
+            if (act > 0) {
+                currentToken.state = act - 1;
+                stack.push(currentToken);
+                nodes.push(new Node(currentToken, null, 1, state));
+                pos++;
+                shiftedTokens++;
+            } else if (act < 0) {
+                act = (-act) - 1;
+                final Object result = myParser.doAction(act);
+                final int symId = productionTable.get(act, 0);
+                final int handleSize = productionTable.get(act, 1);
+                final Node[] children = new Node[handleSize];
+                int count = 0;
+                for (int i = 0; i < handleSize; i++) {
+                    final Node child = children[i] = nodes.peek(handleSize - 1 - i);
+                    count += child.tokens;
+                    if (result != null && child.symbol.value == result) {
+                        child.shared = true;
+                    }
+                }
+                final Symbol currentSymbol;
+                if (handleSize == 0 || !myParser.keepPositions) {
+                    currentSymbol = new Symbol(symId, result);
+                } else {
+                    currentSymbol = new Symbol.Positioned(symId, result, stack.peek(handleSize - 1));
+                }
+                stack.pops(handleSize);
+                nodes.pops(handleSize);
+                final int left = stack.peek().state;
+                currentSymbol.state = BaseParser.getReduce(left, symId);
+                stack.push(currentSymbol);
+                nodes.push(new Node(currentSymbol, children, count, left));
+            } else {
+                throw new RuntimeException("Syntax error at line " + currentToken.line()
+                        + " column " + currentToken.column());
+            }
+        } while (myParser.goonParse);
+
+        root = nodes.peek();
+        return stack.peek();
+    }
+
+    /**
+     * A symbol of a parse with the subtree it was reduced from.
+     */
+    private static final class Node {
+
+        final Symbol symbol;
+        /**
+         * Null for tokens.
+         */
+        final Node[] children;
+        final int tokens;
+        /**
+         * The state this node was pushed from.
+         */
+        final int leftState;
+        /**
+         * The value was handed on to an enclosing reduction.
+         */
+        boolean shared;
+
+        Node(Symbol symbol, Node[] children, int tokens, int leftState) {
+            this.symbol = symbol;
+            this.children = children;
+            this.tokens = tokens;
+            this.leftState = leftState;
+        }
+    }
+
+    /**
+     * Walks the previous tree forward, looking for reusable subtrees at positions of the new token buffer.
+     */
+    private static final class Cursor {
+
+        private final int prefixEnd;
+        private final int suffixStart;
+        private final int newSuffixStart;
+        private final int oldCount;
+
+        /* path from the root to the current node, with the old token index each node starts at */
+        private Node[] path = new Node[32];
+        private int[] starts = new int[32];
+        private int depth;
+
+        Cursor(Node root, int prefixEnd, int suffixStart, int newSuffixStart, int oldCount) {
+            this.prefixEnd = prefixEnd;
+            this.suffixStart = suffixStart;
+            this.newSuffixStart = newSuffixStart;
+            this.oldCount = oldCount;
+            path[0] = root;
+            starts[0] = 0;
+        }
+
+        /**
+         * Finds the outermost reusable node starting at the given position that was pushed from the given state.
+         *
+         * @param pos index in the new token buffer
+         */
+        Node find(int pos, int state) {
+            final int oldPos;
+            if (pos < prefixEnd) {
+                oldPos = pos;
+            } else if (pos >= newSuffixStart && pos - newSuffixStart + suffixStart < oldCount) {
+                oldPos = pos - newSuffixStart + suffixStart;
+            } else {
+                return null;
+            }
+
+            final Node[] myPath = this.path;
+            final int[] myStarts = this.starts;
+            int i = this.depth;
+            while (myStarts[i] + myPath[i].tokens <= oldPos) {
+                i--;
+            }
+            while (i > 0 && myStarts[i - 1] == oldPos) {
+                i--;
+            }
+            this.depth = i;
+            while (this.starts[this.depth] < oldPos) {
+                if (!descend(oldPos)) {
+                    return null;
+                }
+            }
+            while (true) {
+                final Node node = this.path[this.depth];
+                if (node.children == null) {
+                    return null;
+                }
+                if (node.leftState == state && reusable(node, oldPos)) {
+                    return node;
+                }
+                if (!descend(oldPos)) {
+                    return null;
+                }
+            }
+        }
+
+        private boolean reusable(Node node, int start) {
+            if (node.shared || node.tokens == 0) {
+                return false;
+            }
+            final int next = start + node.tokens;
+            return next < prefixEnd || (start >= suffixStart && next < oldCount);
+        }
+
+        /**
+         * Steps into the non-empty child of the current node holding the given token.
+         */
+        private boolean descend(int oldPos) {
+            final Node node = path[depth];
+            if (node.children == null) {
+                return false;
+            }
+            int start = starts[depth];
+            for (Node child : node.children) {
+                if (child.tokens != 0 && oldPos < start + child.tokens) {
+                    if (++depth == path.length) {
+                        path = Arrays.copyOf(path, depth << 1);
+                        starts = Arrays.copyOf(starts, depth << 1);
+                    }
+                    path[depth] = child;
+                    starts[depth] = start;
+                    return true;
+                }
+                start += child.tokens;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The given token moved by the given lines, and by the given columns if it starts on the given zero based line.
+     */
+    private static Symbol moved(Symbol token, int lineDelta, int columnDelta, int columnLine) {
+        final int line = token.line();
+        if (line < 0) {
+            return token;
+        }
+        final int column = line - 1 == columnLine ? token.column() + columnDelta : token.column();
+        if (lineDelta == 0 && column == token.column()) {
+            return token;
+        }
+        return new Symbol.Positioned(token.id, line + lineDelta, column, token.value);
+    }
+
+    /**
+     * Growable token buffer.
+     */
+    private final class TokenBuffer {
+
+        Symbol[] tokens;
+        int[] ends;
+        /**
+         * Offset of the first char the lexer had not read when the token was returned.
+         */
+        int[] reaches;
+        int[] lexStates;
+        int[] endLines;
+        int[] endColumns;
+        int count;
+
+        TokenBuffer(int capacity) {
+            tokens = new Symbol[capacity];
+            ends = new int[capacity];
+            reaches = new int[capacity];
+            lexStates = new int[capacity];
+            endLines = new int[capacity];
+            endColumns = new int[capacity];
+        }
+
+        Symbol next(int base) throws Exception {
+            final Symbol token = lexer.nextToken();
+            ensure(count + 1);
+            tokens[count] = token;
+            ends[count] = token.id == Tokens.EOF ? text.length() : base + lexer.getEndOffset();
+            reaches[count] = reader.pos;
+            lexStates[count] = lexer.yystate();
+            endLines[count] = lexer.getEndLine();
+            endColumns[count] = lexer.getEndColumn();
+            count++;
+            return token;
+        }
+
+        /**
+         * Appends tokens, moving their positions. Columns are only moved for tokens starting or ending on the given
+         * line, the moved tokens are new symbols so the ones of the previous parse keep their positions.
+         */
+        void copy(TokenBuffer source, int from, int to, int offsetDelta, int lineDelta, int columnDelta,
+                  int columnLine) {
+            final int len = to - from;
+            ensure(count + len);
+            System.arraycopy(source.tokens, from, tokens, count, len);
+            System.arraycopy(source.lexStates, from, lexStates, count, len);
+            for (int i = 0; i < len; i++) {
+                if (lineDelta != 0 || columnDelta != 0) {
+                    tokens[count + i] = moved(tokens[count + i], lineDelta, columnDelta, columnLine);
+                }
+                final int line = source.endLines[from + i];
+                ends[count + i] = source.ends[from + i] + offsetDelta;
+                reaches[count + i] = source.reaches[from + i] + offsetDelta;
+                endLines[count + i] = line + lineDelta;
+                endColumns[count + i] = source.endColumns[from + i] + (line == columnLine ? columnDelta : 0);
+            }
+            count += len;
+        }
+
+        private void ensure(int capacity) {
+            if (capacity > tokens.length) {
+                final int size = Math.max(capacity, tokens.length << 1);
+                tokens = Arrays.copyOf(tokens, size);
+                ends = Arrays.copyOf(ends, size);
+                reaches = Arrays.copyOf(reaches, size);
+                lexStates = Arrays.copyOf(lexStates, size);
+                endLines = Arrays.copyOf(endLines, size);
+                endColumns = Arrays.copyOf(endColumns, size);
+            }
+        }
+    }
+
+    /**
+     * Reads the document from an offset without copying it, in small chunks so it is known how far the lexer read.
+     */
+    private static final class TextReader extends Reader {
+
+        private final StringBuilder text;
+        int pos;
+
+        TextReader(StringBuilder text, int pos) {
+            this.text = text;
+            this.pos = pos;
+        }
+
+        @Override
+        public int read(char[] buf, int off, int len) {
+            final int left = text.length() - pos;
+            if (left <= 0) {
+                return -1;
+            }
+            final int count = Math.min(Math.min(len, left), READ_CHUNK);
+            text.getChars(pos, pos + count, buf, off);
+            pos += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
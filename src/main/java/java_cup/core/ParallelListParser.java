@@ -0,0 +1,188 @@
+// Copyright (c) 2013-2014, Webit Team. All Rights Reserved.
+package java_cup.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Parses one large input in parallel, split between the elements of a list.
+ * <p>
+ * The list must be one built by {@code []} (the element actions append to the list value in place), given by the id
+ * of its non terminal, together with the separator terminal: the {@code [SEP]} of the list, or a terminal closing
+ * every element, like the {@code SEMI} of {@code (ID ::= ... SEMI)[]}. The input is scanned first, then parsed
+ * sequentially until the list is open. The rest is cut at separators into chunks, and every chunk is parsed on its
+ * own parser, starting from the state of the open list with an empty list below it. A chunk is only taken if it
+ * reduces to exactly that list, then its list is appended to the list of the main parser. The main parser parses a
+ * chunk that is not taken itself, and takes the chunks after it again as soon as it is back at the open list at the
+ * start of one, so a separator that is not at the top level of the list just costs the chunks up to the next one
+ * that is. The main parser then parses the tail. The value is the same as the sequential one, as long as the element
+ * actions do not depend on the order they run in.
+ * <p>
+ * The actions a chunk that is not taken ran are run again by the main parser, so the element actions must have no
+ * effects but their values, like the ones of {@link IncrementalParser}.
+ *
+ * @author zqq
+ */
+final class ParallelListParser {
+
+    private final Supplier<? extends BaseParser> factory;
+    private final ExecutorService executor;
+    private final int listSymbol;
+    private final int separator;
+
+    /**
+     * @param listSymbol the id of the list non terminal
+     * @param separator the id of the separator terminal
+     */
+    ParallelListParser(Supplier<? extends BaseParser> factory, ExecutorService executor, int listSymbol,
+                       int separator) {
+        this.factory = factory;
+        this.executor = executor;
+        this.listSymbol = listSymbol;
+        this.separator = separator;
+    }
+
+    /**
+     * Parses the input, split into at most the given count of chunks.
+     */
+    @SuppressWarnings("unchecked")
+    Symbol parse(final Lexer lexer, final int chunks) throws Exception {
+        final List<Symbol> tokens = new ArrayList<>();
+        final List<Integer> candidates = new ArrayList<>();
+        Symbol token;
+        do {
+            token = lexer.nextToken();
+            if (token.id == separator) {
+                candidates.add(tokens.size());
+            }
+            tokens.add(token);
+        } while (token.id != Tokens.EOF);
+
+        final BaseParser main = factory.get();
+        main.start();
+
+        /* parse until the list is open in front of a separator, or behind it if the list can not shift it */
+        int pos = 0;
+        int next = 0;
+        int shift = -1;
+        while (next < candidates.size()) {
+            final int sep = candidates.get(next++);
+            pos = feed(main, tokens, pos, sep);
+            main.settle(tokens.get(sep), 0);
+            if (isOpenList(main) && BaseParser.getAction(
+                    main.tokenStack.peek().state, BaseParser.terminalClass(separator)) > 0) {
+                shift = 0;
+                break;
+            }
+            pos = feed(main, tokens, pos, sep + 1);
+            main.settle(tokens.get(sep + 1), 0);
+            if (isOpenList(main)) {
+                shift = 1;
+                break;
+            }
+        }
+
+        final int last = shift < 0 ? -1 : candidates.get(candidates.size() - 1) + shift;
+        if (last > pos) {
+            final int size = Math.max(1, (last - pos) / Math.max(1, chunks));
+            final int belowState = main.tokenStack.peek(1).state;
+
+            /* cut at the first separator after every size tokens */
+            final List<int[]> ranges = new ArrayList<>();
+            int from = pos;
+            for (; next < candidates.size(); next++) {
+                final int to = candidates.get(next) + shift;
+                if (to - from >= size || to == last) {
+                    ranges.add(new int[]{from, to});
+                    from = to;
+                }
+            }
+
+            final List<Future<List<Object>>> futures = new ArrayList<>(ranges.size());
+            for (int[] range : ranges) {
+                futures.add(executor.submit(() -> parseChunk(tokens, range[0], range[1], belowState)));
+            }
+
+            /* take the chunks where the main parser is at the open list, parse the others on the main parser */
+            final Stack<Symbol> stack = main.tokenStack;
+            final int openDepth = stack.size();
+            final int openState = stack.peek().state;
+            for (int i = 0; i < ranges.size(); i++) {
+                final int[] range = ranges.get(i);
+                List<Object> chunk;
+                try {
+                    chunk = futures.get(i).get();
+                } catch (ExecutionException e) {
+                    chunk = null;
+                }
+                final Symbol top = stack.peek();
+                if (chunk != null && stack.size() == openDepth && top.state == openState && top.id == listSymbol
+                        && top.value instanceof List && stack.peek(1).state == belowState) {
+                    ((List<Object>) top.value).addAll(chunk);
+                    main.shifted(range[1] - range[0]);
+                    pos = range[1];
+                } else {
+                    pos = feed(main, tokens, pos, range[1]);
+                    main.settle(tokens.get(pos), 0);
+                }
+            }
+        }
+
+        feed(main, tokens, pos, tokens.size());
+        return main.result();
+    }
+
+    private boolean isOpenList(BaseParser parser) {
+        final Symbol top = parser.tokenStack.peek();
+        return top.id == listSymbol && top.value instanceof List && parser.syntaxErrors.isEmpty();
+    }
+
+    /**
+     * Parses a chunk of elements on top of an empty list in the state of the open list.
+     *
+     * @return the elements, null if the chunk does not reduce to the list alone
+     */
+    @SuppressWarnings("unchecked")
+    private List<Object> parseChunk(List<Symbol> tokens, int from, int to, int belowState) throws Exception {
+        final BaseParser parser = factory.get();
+        parser.start();
+        final Stack<Symbol> stack = parser.tokenStack;
+        stack.peek().state = belowState;
+        final Symbol list = new Symbol(listSymbol, new ArrayList<>());
+        list.state = BaseParser.getReduce(belowState, listSymbol);
+        stack.push(list);
+        List<Object> elements = null;
+        try {
+            for (int i = from; i < to; i++) {
+                if (!parser.feed(tokens.get(i))) {
+                    return null;
+                }
+            }
+            parser.settle(tokens.get(to), 2);
+            final Symbol top = stack.peek();
+            if (stack.size() == 2 && top.id == listSymbol && top.state == list.state
+                    && parser.syntaxErrors.isEmpty() && top.value instanceof List) {
+                elements = (List<Object>) top.value;
+            }
+            return elements;
+        } catch (RuntimeException e) {
+            return null;
+        } finally {
+            // the chunk is not a parse of its own, its metrics end with it all the same
+            if (parser.metrics != null) {
+                parser.metrics.end(elements != null, parser.syntaxErrors.size());
+            }
+        }
+    }
+
+    private static int feed(BaseParser parser, List<Symbol> tokens, int from, int to) throws Exception {
+        for (int i = from; i < to; i++) {
+            parser.feed(tokens.get(i));
+        }
+        return to;
+    }
+}
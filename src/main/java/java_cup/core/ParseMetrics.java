@@ -0,0 +1,287 @@
+// Copyright (c) 2013-2014, Webit Team. All Rights Reserved.
+package java_cup.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Counters of the work done by the parses of one parser: shifts, reductions per production, action lookups per
+ * state, the entries searched in the action rows, goto lookups and the maximum stack depth.
+ * <p>
+ * A parser only counts if its {@link BaseParser#metrics} is set, which is the default if the system property
+ * {@value #PROPERTY} is {@code true}. Every finished parse also commits a {@link ParseEvent}, and one
+ * {@link ProductionEvent} per reduced production, to the running JFR recordings that enable them. Not thread safe,
+ * like the parser it belongs to.
+ *
+ * @author zqq
+ */
+final class ParseMetrics {
+
+    static final String PROPERTY = "java_cup.parser.metrics";
+    static final boolean ENABLED_BY_DEFAULT = Boolean.getBoolean(PROPERTY);
+
+    private final long[] reductions = new long[BaseParser.PRODUCTION_TABLE.rows()];
+    private final long[] stateActions = new long[BaseParser.ACTION_TABLE.rows()];
+    private long parses;
+    private long shifts;
+    private long reductionCount;
+    private long actionLookups;
+    private long searchedEntries;
+    private long gotoLookups;
+    private int maxStackDepth;
+
+    // the current parse
+    private ParseEvent event;
+    private long[] reductionsAtStart;
+    private long shiftsAtStart;
+    private long reductionCountAtStart;
+    private long actionLookupsAtStart;
+    private long searchedEntriesAtStart;
+    private long gotoLookupsAtStart;
+    private int parseStackDepth;
+
+    void begin() {
+        parses++;
+        parseStackDepth = 0;
+        shiftsAtStart = shifts;
+        reductionCountAtStart = reductionCount;
+        actionLookupsAtStart = actionLookups;
+        searchedEntriesAtStart = searchedEntries;
+        gotoLookupsAtStart = gotoLookups;
+        final ParseEvent parseEvent = new ParseEvent();
+        if (parseEvent.isEnabled()) {
+            parseEvent.begin();
+            event = parseEvent;
+        } else {
+            event = null;
+        }
+        reductionsAtStart = new ProductionEvent().isEnabled() ? reductions.clone() : null;
+    }
+
+    void end(boolean accepted, int syntaxErrors) {
+        final ParseEvent parseEvent = this.event;
+        if (parseEvent != null) {
+            this.event = null;
+            parseEvent.end();
+            if (parseEvent.shouldCommit()) {
+                parseEvent.accepted = accepted;
+                parseEvent.syntaxErrors = syntaxErrors;
+                parseEvent.shifts = shifts - shiftsAtStart;
+                parseEvent.reductions = reductionCount - reductionCountAtStart;
+                parseEvent.actionLookups = actionLookups - actionLookupsAtStart;
+                parseEvent.searchedEntries = searchedEntries - searchedEntriesAtStart;
+                parseEvent.gotoLookups = gotoLookups - gotoLookupsAtStart;
+                parseEvent.maxStackDepth = parseStackDepth;
+                parseEvent.commit();
+            }
+        }
+        final long[] before = this.reductionsAtStart;
+        if (before != null) {
+            this.reductionsAtStart = null;
+            for (int i = 0; i < before.length; i++) {
+                final long count = reductions[i] - before[i];
+                if (count != 0) {
+                    final ProductionEvent productionEvent = new ProductionEvent();
+                    productionEvent.production = i;
+                    productionEvent.symbol = BaseParser.PRODUCTION_TABLE.get(i, 0);
+                    productionEvent.reductions = count;
+                    productionEvent.commit();
+                }
+            }
+        }
+    }
+
+    void action(int state, int sym) {
+        actionLookups++;
+        stateActions[state]++;
+        searchedEntries += searchLength(state, sym);
+    }
+
+    void shift(int stackDepth) {
+        shifts++;
+        depth(stackDepth);
+    }
+
+    void reduce(int production) {
+        reductions[production]++;
+        reductionCount++;
+    }
+
+    void gotoLookup(int stackDepth) {
+        gotoLookups++;
+        depth(stackDepth);
+    }
+
+    private void depth(int stackDepth) {
+        if (stackDepth > parseStackDepth) {
+            parseStackDepth = stackDepth;
+            if (stackDepth > maxStackDepth) {
+                maxStackDepth = stackDepth;
+            }
+        }
+    }
+
+    void reset() {
+        Arrays.fill(reductions, 0);
+        Arrays.fill(stateActions, 0);
+        parses = shifts = reductionCount = actionLookups = searchedEntries = gotoLookups = 0;
+        maxStackDepth = 0;
+    }
+
+    Snapshot snapshot() {
+        return new Snapshot(parses, shifts, reductionCount, actionLookups, searchedEntries, gotoLookups,
+                maxStackDepth, reductions.clone(), stateActions.clone());
+    }
+
+    /**
+     * The count of action row entries {@link BaseParser#getAction(int, int)} compares to find the symbol.
+     */
+    private static int searchLength(final int state, final int sym) {
+        final Table table = BaseParser.ACTION_TABLE;
+        final int len = table.length(state);
+        if (len < 20) {
+            for (int probe = 0; probe < len; probe += 2) {
+                if (table.get(state, probe) == sym) {
+                    return (probe >> 1) + 1;
+                }
+            }
+            return len >> 1;
+        }
+        int first = 0;
+        int last = (len - 1) >> 1;
+        int count = 0;
+        while (first <= last) {
+            count++;
+            final int probe = (first + last) >> 1;
+            final int key = table.get(state, probe << 1);
+            if (sym == key) {
+                break;
+            } else if (sym > key) {
+                first = probe + 1;
+            } else {
+                last = probe - 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The counters at some point, accumulated over all parses since the metrics were created or reset.
+     *
+     * @param productionReductions reductions by production id
+     * @param stateActions action lookups by state
+     */
+    record Snapshot(
+            long parses,
+            long shifts,
+            long reductions,
+            long actionLookups,
+            long searchedEntries,
+            long gotoLookups,
+            int maxStackDepth,
+            long[] productionReductions,
+            long[] stateActions
+    ) {
+
+        /**
+         * The ids of the most reduced productions, most reduced first.
+         */
+        int[] hottestProductions(int limit) {
+            return hottest(productionReductions, limit);
+        }
+
+        /**
+         * The ids of the states with the most action lookups, most first.
+         */
+        int[] hottestStates(int limit) {
+            return hottest(stateActions, limit);
+        }
+
+        double meanSearchLength() {
+            return actionLookups == 0 ? 0 : (double) searchedEntries / actionLookups;
+        }
+
+        private static int[] hottest(long[] counts, int limit) {
+            return IntStream.range(0, counts.length)
+                    .filter(i -> counts[i] != 0)
+                    .boxed()
+                    .sorted((a, b) -> Long.compare(counts[b], counts[a]))
+                    .limit(limit)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder buffer = new StringBuilder()
+                    .append(parses).append(" parses, ")
+                    .append(shifts).append(" shifts, ")
+                    .append(reductions).append(" reductions, ")
+                    .append(gotoLookups).append(" goto lookups, ")
+                    .append(actionLookups).append(" action lookups (")
+                    .append(String.format("%.2f", meanSearchLength())).append(" entries searched on average), ")
+                    .append("max stack depth ").append(maxStackDepth);
+            for (int production : hottestProductions(10)) {
+                buffer.append("\n  production ").append(production)
+                        .append(": ").append(productionReductions[production]).append(" reductions");
+            }
+            return buffer.toString();
+        }
+    }
+
+    @Name("java_cup.Parse")
+    @Label("Parse")
+    @Category("java_cup")
+    @Description("One parse of an instrumented parser")
+    static final class ParseEvent extends Event {
+
+        @Label("Accepted")
+        boolean accepted;
+
+        @Label("Syntax Errors")
+        int syntaxErrors;
+
+        @Label("Shifts")
+        long shifts;
+
+        @Label("Reductions")
+        long reductions;
+
+        @Label("Action Lookups")
+        long actionLookups;
+
+        @Label("Searched Entries")
+        @Description("Action row entries compared by the action lookups")
+        long searchedEntries;
+
+        @Label("Goto Lookups")
+        long gotoLookups;
+
+        @Label("Max Stack Depth")
+        int maxStackDepth;
+    }
+
+    @Name("java_cup.ProductionReductions")
+    @Label("Production Reductions")
+    @Category("java_cup")
+    @Description("The reductions of one production in a parse of an instrumented parser")
+    @Enabled(false)
+    static final class ProductionEvent extends Event {
+
+        @Label("Production")
+        int production;
+
+        @Label("Symbol")
+        int symbol;
+
+        @Label("Reductions")
+        long reductions;
+    }
+}
@@ -1,11 +1,13 @@
 // Copyright (c) 2013-2014, Webit Team. All Rights Reserved.
 package java_cup.core;
 
-final class Symbol {
+/**
+ * A symbol of the parse stack. The tokens are {@link Positioned}, the results of the reductions only if the actions
+ * of the parser read their positions, see {@link BaseParser#positions()}.
+ */
+class Symbol {
 
     final int id;
-    final int line;
-    final int column;
     final Object value;
 
     /**
@@ -13,14 +15,54 @@ final class Symbol {
      */
     int state;
 
-    Symbol(int id, Object value, Symbol sym) {
-        this(id, sym.line, sym.column, value);
-    }
-
-    Symbol(int id, int line, int column, Object value) {
+    Symbol(int id, Object value) {
         this.id = id;
-        this.line = line;
-        this.column = column;
         this.value = value;
     }
+
+    /**
+     * The line of the symbol, -1 if it has no position.
+     */
+    int line() {
+        return -1;
+    }
+
+    /**
+     * The column of the symbol, -1 if it has no position.
+     */
+    int column() {
+        return -1;
+    }
+
+    /**
+     * A symbol at a position of the input.
+     */
+    static final class Positioned extends Symbol {
+
+        private final int line;
+        private final int column;
+
+        /**
+         * A symbol at the position of the given first symbol of its handle.
+         */
+        Positioned(int id, Object value, Symbol first) {
+            this(id, first.line(), first.column(), value);
+        }
+
+        Positioned(int id, int line, int column, Object value) {
+            super(id, value);
+            this.line = line;
+            this.column = column;
+        }
+
+        @Override
+        int line() {
+            return line;
+        }
+
+        @Override
+        int column() {
+            return column;
+        }
+    }
 }
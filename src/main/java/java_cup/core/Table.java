@@ -0,0 +1,253 @@
+// Copyright (c) 2013, Webit Team. All Rights Reserved.
+package java_cup.core;
+
+/**
+ * A table of the parser, read as rows of byte, short or int, whichever the generator found narrow enough. Each table
+ * is one of the implementations for the whole run, so every lookup site sees a single one and gets it inlined.
+ * <p>
+ * The action and goto rows are pairs of key and value sorted by key, the production rows are the left hand side and
+ * the length of the production. A goto row is null if it has no entries.
+ */
+abstract class Table {
+
+    static Table of(Object data) {
+        if (data instanceof byte[][] rows) {
+            return new ByteTable(rows);
+        }
+        if (data instanceof short[][] rows) {
+            return new ShortTable(rows);
+        }
+        if (data instanceof int[][] rows) {
+            return new IntTable(rows);
+        }
+        throw new IllegalArgumentException("Not a parse table: " + (data != null ? data.getClass() : null));
+    }
+
+    /**
+     * The count of rows.
+     */
+    abstract int rows();
+
+    /**
+     * The length of the given row, zero for a null one.
+     */
+    abstract int length(int row);
+
+    abstract int get(int row, int index);
+
+    /**
+     * The value paired with the given key in the given row, a linear search for the short rows and a binary one for
+     * the long ones.
+     *
+     * @param missing the value if the key is not in the row
+     */
+    abstract int find(int row, int key, int missing);
+
+    /**
+     * The value paired with the given key in the given row by a linear search, which does not need the row sorted.
+     *
+     * @param missing the value if the key is not in the row or the row is null
+     */
+    abstract int scan(int row, int key, int missing);
+
+    static final class ByteTable extends Table {
+
+        private final byte[][] rows;
+
+        ByteTable(byte[][] rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        int rows() {
+            return rows.length;
+        }
+
+        @Override
+        int length(int row) {
+            final byte[] values = rows[row];
+            return values != null ? values.length : 0;
+        }
+
+        @Override
+        int get(int row, int index) {
+            return rows[row][index];
+        }
+
+        @Override
+        int find(int row, int key, int missing) {
+            final byte[] values = rows[row];
+            final int len = values.length;
+            if (len < 20) {
+                for (int probe = 0; probe < len; probe += 2) {
+                    if (values[probe] == key) {
+                        return values[probe + 1];
+                    }
+                }
+                return missing;
+            }
+            int first = 0;
+            int last = (len - 1) >> 1;
+            while (first <= last) {
+                final int probe = (first + last) >>> 1;
+                final int at = probe << 1;
+                final int found = values[at];
+                if (key == found) {
+                    return values[at + 1];
+                } else if (key > found) {
+                    first = probe + 1;
+                } else {
+                    last = probe - 1;
+                }
+            }
+            return missing;
+        }
+
+        @Override
+        int scan(int row, int key, int missing) {
+            final byte[] values = rows[row];
+            if (values != null) {
+                for (int probe = 0, len = values.length; probe < len; probe += 2) {
+                    if (values[probe] == key) {
+                        return values[probe + 1];
+                    }
+                }
+            }
+            return missing;
+        }
+    }
+
+    static final class ShortTable extends Table {
+
+        private final short[][] rows;
+
+        ShortTable(short[][] rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        int rows() {
+            return rows.length;
+        }
+
+        @Override
+        int length(int row) {
+            final short[] values = rows[row];
+            return values != null ? values.length : 0;
+        }
+
+        @Override
+        int get(int row, int index) {
+            return rows[row][index];
+        }
+
+        @Override
+        int find(int row, int key, int missing) {
+            final short[] values = rows[row];
+            final int len = values.length;
+            if (len < 20) {
+                for (int probe = 0; probe < len; probe += 2) {
+                    if (values[probe] == key) {
+                        return values[probe + 1];
+                    }
+                }
+                return missing;
+            }
+            int first = 0;
+            int last = (len - 1) >> 1;
+            while (first <= last) {
+                final int probe = (first + last) >>> 1;
+                final int at = probe << 1;
+                final int found = values[at];
+                if (key == found) {
+                    return values[at + 1];
+                } else if (key > found) {
+                    first = probe + 1;
+                } else {
+                    last = probe - 1;
+                }
+            }
+            return missing;
+        }
+
+        @Override
+        int scan(int row, int key, int missing) {
+            final short[] values = rows[row];
+            if (values != null) {
+                for (int probe = 0, len = values.length; probe < len; probe += 2) {
+                    if (values[probe] == key) {
+                        return values[probe + 1];
+                    }
+                }
+            }
+            return missing;
+        }
+    }
+
+    static final class IntTable extends Table {
+
+        private final int[][] rows;
+
+        IntTable(int[][] rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        int rows() {
+            return rows.length;
+        }
+
+        @Override
+        int length(int row) {
+            final int[] values = rows[row];
+            return values != null ? values.length : 0;
+        }
+
+        @Override
+        int get(int row, int index) {
+            return rows[row][index];
+        }
+
+        @Override
+        int find(int row, int key, int missing) {
+            final int[] values = rows[row];
+            final int len = values.length;
+            if (len < 20) {
+                for (int probe = 0; probe < len; probe += 2) {
+                    if (values[probe] == key) {
+                        return values[probe + 1];
+                    }
+                }
+                return missing;
+            }
+            int first = 0;
+            int last = (len - 1) >> 1;
+            while (first <= last) {
+                final int probe = (first + last) >>> 1;
+                final int at = probe << 1;
+                final int found = values[at];
+                if (key == found) {
+                    return values[at + 1];
+                } else if (key > found) {
+                    first = probe + 1;
+                } else {
+                    last = probe - 1;
+                }
+            }
+            return missing;
+        }
+
+        @Override
+        int scan(int row, int key, int missing) {
+            final int[] values = rows[row];
+            if (values != null) {
+                for (int probe = 0, len = values.length; probe < len; probe += 2) {
+                    if (values[probe] == key) {
+                        return values[probe + 1];
+                    }
+                }
+            }
+            return missing;
+        }
+    }
+}
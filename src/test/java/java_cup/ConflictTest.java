@@ -0,0 +1,98 @@
+package java_cup;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConflictTest {
+
+    /**
+     * The conflicts of the grammar as the generator reported them before their messages were rendered lazily: 25
+     * shift/reduce conflicts of the operators, one of the dangling else and one reduce/reduce conflict.
+     */
+    private static final String EXPECTED = Grammars.text("expected/conflicts.txt");
+    private static final int CONFLICTS = 27;
+
+    private static List<String> expectedMessages() {
+        return Arrays.stream(EXPECTED.split("\n(?=Warning : )")).map(String::strip).toList();
+    }
+
+    private static List<String> conflictWarnings(GrammarContext context) {
+        return context.diagnostics().stream()
+                .filter(diagnostic -> diagnostic.severity() == Diagnostic.Severity.WARNING)
+                .filter(diagnostic -> diagnostic.message().contains("conflict"))
+                .map(diagnostic -> diagnostic.toString().strip())
+                .toList();
+    }
+
+    @Test
+    void reportsEveryConflictAsBefore() throws Exception {
+        final ByteArrayOutputStream log = new ByteArrayOutputStream();
+        final GrammarCompiler compiler = Main.of(new String[]{"-conflict-messages", "all", "-expect", "27",
+                        Grammars.path("conflicts.cup").toString()}).compiler()
+                .log(new PrintStream(log, true, StandardCharsets.UTF_8));
+        final Grammars.Generated generated = Grammars.generate(compiler, Grammars.text("conflicts.cup"));
+
+        assertTrue(generated.context().written());
+        final String text = log.toString(StandardCharsets.UTF_8);
+        final int start = text.indexOf("Warning : ***");
+        assertEquals(EXPECTED, text.substring(start, text.indexOf("  Checking productions...", start)));
+        assertEquals(expectedMessages(), conflictWarnings(generated.context()));
+    }
+
+    @Test
+    void showsTheFirstConflictsAndCountsTheOthers() throws Exception {
+        final Grammars.Generated generated = Grammars.generate(new GrammarCompiler().expectConflicts(CONFLICTS),
+                Grammars.text("conflicts.cup"));
+
+        final List<String> warnings = conflictWarnings(generated.context());
+        assertEquals(21, warnings.size());
+        assertEquals(expectedMessages().subList(0, 20), warnings.subList(0, 20));
+        assertEquals("Warning : *** 7 more conflicts not shown, use -conflict-messages all to show them",
+                warnings.get(20));
+        assertTrue(generated.context().written());
+        assertEquals((long) CONFLICTS, generated.context().stats().counts().get("conflicts"));
+    }
+
+    @Test
+    void showsTheGivenCountOfConflicts() throws Exception {
+        final Grammars.Generated generated = Grammars.generate(
+                new GrammarCompiler().expectConflicts(CONFLICTS).maxConflictMessages(3), Grammars.text("conflicts.cup"));
+
+        final List<String> warnings = conflictWarnings(generated.context());
+        assertEquals(expectedMessages().subList(0, 3), warnings.subList(0, 3));
+        assertEquals(List.of("Warning : *** 24 more conflicts not shown, use -conflict-messages all to show them"),
+                warnings.subList(3, warnings.size()));
+    }
+
+    @Test
+    void abortsOnMoreConflictsThanExpected() throws Exception {
+        final Grammars.Generated generated = Grammars.generate(new GrammarCompiler().expectConflicts(CONFLICTS - 1),
+                Grammars.text("conflicts.cup"));
+
+        assertFalse(generated.context().written());
+        assertTrue(generated.context().diagnostics().contains(new Diagnostic(Diagnostic.Severity.ERROR,
+                "*** More conflicts encountered than expected -- parser generation aborted")));
+        assertEquals(21, conflictWarnings(generated.context()).size());
+    }
+
+    @Test
+    void reportsTheConflictOfTheExpressionsAsBefore() throws Exception {
+        final Grammars.Generated generated = Grammars.generate(new GrammarCompiler().expectConflicts(1),
+                Grammars.text("expr.cup"));
+
+        assertEquals(List.of("""
+                Warning : *** Shift/Reduce conflict found in state #23
+                  between [s ::= IF LP e RP s (*) ,{EOF RB COMMA ELSE }]
+                  and     [s ::= IF LP e RP s (*) ELSE s ,{EOF RB COMMA ELSE }]
+                  under symbol ELSE
+                  Resolved in favor of shifting."""), conflictWarnings(generated.context()));
+        assertTrue(generated.context().written());
+    }
+}
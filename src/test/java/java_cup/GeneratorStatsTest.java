@@ -0,0 +1,217 @@
+package java_cup;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeneratorStatsTest {
+
+    private static final List<String> PHASES = List.of("parse", "actions", "check", "nullability", "first sets",
+            "state machine", "lookaheads", "table fill", "conflicts", "check productions", "terminal classes", "emit");
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Runs the command line with the given options on the given grammar, and reads the stats it writes.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> stats(Path grammar, String... options) throws Exception {
+        final Path file = dir.resolve("stats.json");
+        final List<String> args = new ArrayList<>(List.of(options));
+        args.addAll(List.of("-stats", file.toString(), "-destdir", dir.toString(), "-destresdir", dir.toString(),
+                grammar.toString()));
+        final GrammarContext context = Main.of(args.toArray(new String[0]))
+                .log(new PrintStream(PrintStream.nullOutputStream()))
+                .run();
+        assertFalse(context.hasErrors(), () -> context.diagnostics().toString());
+        return (Map<String, Object>) new Json(Files.readString(file)).value();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> phases(Map<String, Object> stats) {
+        return (List<Map<String, Object>>) stats.get("phases");
+    }
+
+    private static List<Object> names(Map<String, Object> stats) {
+        return phases(stats).stream().map(phase -> phase.get("name")).toList();
+    }
+
+    @Test
+    void writesEveryPhaseAsJson() throws Exception {
+        final Map<String, Object> stats = stats(Grammars.path("expr.cup"), "-expect", "1");
+
+        assertEquals(Main.TITLE, stats.get("version"));
+        assertEquals(PHASES, names(stats));
+        for (Map<String, Object> phase : phases(stats)) {
+            assertTrue((Long) phase.get("nanos") > 0, phase::toString);
+            assertTrue((Long) phase.get("allocatedBytes") > 0, phase::toString);
+            assertTrue((Long) phase.get("peakHeapBytes") > 0, phase::toString);
+            assertEquals(false, phase.get("concurrent"), phase::toString);
+        }
+        @SuppressWarnings("unchecked")
+        final Map<String, Object> counts = (Map<String, Object>) stats.get("counts");
+        assertEquals(36L, counts.get("states"));
+        assertEquals(1L, counts.get("conflicts"));
+    }
+
+    @Test
+    void listsThePhasesOfTheOptions() throws Exception {
+        final List<String> minimized = new ArrayList<>(PHASES);
+        minimized.add(minimized.indexOf("terminal classes"), "minimize");
+
+        assertEquals(minimized, names(stats(Grammars.path("declarations.cup"), "-minimize")));
+        assertEquals(PHASES, names(stats(Grammars.path("declarations.cup"), "-stream-tables")));
+    }
+
+    /**
+     * The rows of the streamed tables are allocated by the tasks filling them in, most of them on the workers of the
+     * parallel stream.
+     */
+    @Test
+    void countsTheAllocationsOfTheWorkers() throws Exception {
+        final int count = 300;
+        final String names = IntStream.range(0, count).mapToObj(i -> "T" + i).collect(Collectors.joining(", "));
+        final Path grammar = dir.resolve("wide.cup");
+        Files.writeString(grammar, "terminal " + names + ";\nnonterminal s;\ns ::= "
+                + IntStream.range(0, count).mapToObj(i -> "T" + i + " T" + i).collect(Collectors.joining(" | "))
+                + ";\n");
+
+        final Map<String, Object> fill = phases(stats(grammar, "-stream-tables")).stream()
+                .filter(phase -> phase.get("name").equals("table fill"))
+                .findFirst().orElseThrow();
+        // a row of ints by terminal for each of the more than 2 * count states
+        final long rows = 2L * count * count * Integer.BYTES;
+        assertTrue((Long) fill.get("allocatedBytes") > rows, fill::toString);
+    }
+
+    @Test
+    void marksThePhasesRunningAtTheSameTime() {
+        final GeneratorStats first = new GeneratorStats();
+        final GeneratorStats second = new GeneratorStats();
+        first.phase("alone");
+        first.phase("first");
+        second.phase("second");
+        second.end();
+        first.end();
+        second.phase("alone");
+        second.end();
+
+        assertEquals(List.of(false, true), first.phases().stream().map(GeneratorStats.Phase::concurrent).toList());
+        assertEquals(List.of(true, false), second.phases().stream().map(GeneratorStats.Phase::concurrent).toList());
+        for (GeneratorStats.Phase phase : second.phases()) {
+            assertTrue(phase.peakHeapBytes() > 0);
+        }
+    }
+
+    /**
+     * Reads the JSON of the stats: objects, arrays, strings without escapes, integers and booleans.
+     */
+    private static final class Json {
+
+        private final String text;
+        private int at;
+
+        Json(String text) {
+            this.text = text;
+        }
+
+        Object value() {
+            final Object value = read();
+            skipSpaces();
+            assertEquals(text.length(), at, "end of the JSON");
+            return value;
+        }
+
+        private Object read() {
+            skipSpaces();
+            final char c = text.charAt(at);
+            if (c == '{') {
+                final Map<String, Object> object = new LinkedHashMap<>();
+                at++;
+                skipSpaces();
+                if (text.charAt(at) == '}') {
+                    at++;
+                    return object;
+                }
+                do {
+                    skipSpaces();
+                    final String key = string();
+                    skipSpaces();
+                    expect(':');
+                    assertNull(object.put(key, read()), key);
+                    skipSpaces();
+                } while (text.charAt(at++) == ',');
+                assertEquals('}', text.charAt(at - 1), this::toString);
+                return object;
+            }
+            if (c == '[') {
+                final List<Object> array = new ArrayList<>();
+                at++;
+                skipSpaces();
+                if (text.charAt(at) == ']') {
+                    at++;
+                    return array;
+                }
+                do {
+                    array.add(read());
+                    skipSpaces();
+                } while (text.charAt(at++) == ',');
+                assertEquals(']', text.charAt(at - 1), this::toString);
+                return array;
+            }
+            if (c == '"') {
+                return string();
+            }
+            if (text.startsWith("true", at) || text.startsWith("false", at)) {
+                final boolean value = text.startsWith("true", at);
+                at += value ? 4 : 5;
+                return value;
+            }
+            final int start = at;
+            if (text.charAt(at) == '-') {
+                at++;
+            }
+            while (at < text.length() && Character.isDigit(text.charAt(at))) {
+                at++;
+            }
+            return Long.parseLong(text.substring(start, at));
+        }
+
+        private String string() {
+            expect('"');
+            final int end = text.indexOf('"', at);
+            final String value = text.substring(at, end);
+            assertEquals(-1, value.indexOf('\\'), value);
+            at = end + 1;
+            return value;
+        }
+
+        private void expect(char c) {
+            assertEquals(c, text.charAt(at), this::toString);
+            at++;
+        }
+
+        private void skipSpaces() {
+            while (at < text.length() && Character.isWhitespace(text.charAt(at))) {
+                at++;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "JSON at " + at + ": " + text.substring(at, Math.min(text.length(), at + 40));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package java_cup;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GrammarBatchTest {
+
+    @TempDir
+    Path dir;
+
+    private String out;
+
+    /**
+     * Runs the batch of the given manifest lines, and returns whether all its grammars are generated.
+     */
+    private boolean run(String... lines) throws Exception {
+        final Path manifest = dir.resolve("manifest.txt");
+        Files.writeString(manifest, String.join("\n", lines) + "\n");
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final boolean ok = GrammarBatch.read(manifest.toFile(), 2)
+                .run(new PrintStream(bytes, true, StandardCharsets.UTF_8));
+        out = bytes.toString(StandardCharsets.UTF_8);
+        return ok;
+    }
+
+    /**
+     * The rows of the summary of the batch, with the times left out.
+     */
+    private List<String> summary() {
+        return out.substring(out.indexOf("------- " + Main.TITLE + " Batch Summary -------")).lines()
+                .map(line -> line.replaceFirst("^ +\\d+\\.\\d ", "").replaceAll("[\\d.]+ ms", "ms")
+                        .replaceFirst("\\([\\d.]+x\\)", "(x)"))
+                .toList();
+    }
+
+    private String entry(String options, String grammar) throws Exception {
+        final Path dest = Files.createDirectories(dir.resolve(grammar + " out"));
+        return options + " -destdir \"" + dest + "\" -destresdir \"" + dest + "\" " + Grammars.path(grammar);
+    }
+
+    @Test
+    void splitsTheArgumentsAtSpacesOutsideQuotes() {
+        assertArrayEquals(new String[]{"-destdir", "out/a", "-parser", "AParser", "a.cup"},
+                GrammarBatch.split("  -destdir out/a\t-parser   AParser a.cup "));
+        assertArrayEquals(new String[]{"-destdir", "out dir/a", "a b.cup"},
+                GrammarBatch.split("-destdir \"out dir/a\" \"a b\".cup"));
+        assertArrayEquals(new String[]{"-parser-code", "", "a.cup"}, GrammarBatch.split("-parser-code \"\" a.cup"));
+        assertArrayEquals(new String[0], GrammarBatch.split(" \t "));
+    }
+
+    @Test
+    void skipsTheBlankLinesAndTheComments() throws Exception {
+        assertTrue(run("# the grammars of the batch",
+                "",
+                entry("-expect 1", "expr.cup"),
+                "   # an indented comment",
+                "  ",
+                "\t" + entry("-parser KParser", "keywords.cup")));
+
+        assertTrue(out.contains("===== " + Grammars.path("expr.cup") + " =====\n"), out);
+        assertTrue(out.contains("===== " + Grammars.path("keywords.cup") + " =====\n"), out);
+        assertTrue(Files.isRegularFile(dir.resolve("expr.cup out/Parser.java")));
+        assertTrue(Files.isRegularFile(dir.resolve("keywords.cup out/KParser.java")));
+        assertTrue(summary().contains("  2 grammars on 2 threads in ms, ms summed (x)"), out);
+        // the conflict of expr.cup and the four unused terminals of keywords.cup
+        assertTrue(summary().contains("  0 errors and 5 warnings, 0 grammars not generated."), out);
+    }
+
+    @Test
+    void reportsTheGrammarsThatAreNotGenerated() throws Exception {
+        final GrammarContext expr = Grammars.generate(new GrammarCompiler().expectConflicts(1),
+                Grammars.text("expr.cup")).context();
+
+        assertFalse(run(entry("-expect 1", "expr.cup"), entry("", "broken.cup")));
+
+        // the log of the broken grammar, with its errors, then the summary row of each grammar in manifest order
+        final String broken = out.substring(out.indexOf("===== " + Grammars.path("broken.cup") + " =====\n"));
+        assertTrue(broken.contains("Error : Syntax error at line 4 column 9\n"), broken);
+        assertTrue(broken.contains("  No code produced.\n"), broken);
+        assertTrue(Files.isRegularFile(dir.resolve("expr.cup out/Parser.java")));
+        assertFalse(Files.exists(dir.resolve("broken.cup out/Parser.java")));
+        assertEquals(List.of(
+                "------- " + Main.TITLE + " Batch Summary -------",
+                "          ms   states  errors  warnings  grammar",
+                String.format("%8d %7d %9d  %s", expr.states().size(), 0, 1, Grammars.path("expr.cup")),
+                String.format("%8d %7d %9d  %s", 0, 2, 0, Grammars.path("broken.cup")),
+                "  2 grammars on 2 threads in ms, ms summed (x)",
+                "  2 errors and 1 warnings, 1 grammars not generated.",
+                "---------------------------------------------------- "), summary());
+    }
+
+    @Test
+    void reportsTheGrammarsThatFail() throws Exception {
+        // the tables can not be written into a file
+        final Path file = Files.writeString(dir.resolve("file"), "");
+
+        assertFalse(run(entry("-expect 1", "expr.cup"),
+                "-destdir " + file + " -destresdir " + file + " " + Grammars.path("keywords.cup")));
+
+        assertTrue(out.contains("Error : java.io.FileNotFoundException: " + file), out);
+        assertEquals(String.format("%8s %7s %9s  %s", "-", "failed", "-", Grammars.path("keywords.cup")),
+                summary().get(3));
+        assertTrue(summary().contains("  0 errors and 1 warnings, 1 grammars not generated."), out);
+    }
+
+    @Test
+    void rejectsTheManifestOfAnInvalidCommandLine() throws Exception {
+        final IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> run(entry("-expect 1", "expr.cup"), "-dump"));
+        assertTrue(e.getMessage().startsWith("Must end with the grammar file"), e.getMessage());
+    }
+}
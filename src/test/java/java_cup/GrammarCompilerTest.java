@@ -0,0 +1,65 @@
+package java_cup;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GrammarCompilerTest {
+
+    @Test
+    void reportsEveryBrokenProduction() throws Exception {
+        final Grammars.Generated generated = Grammars.generate(new GrammarCompiler(), Grammars.text("broken.cup"));
+
+        assertEquals(List.of(
+                        new Diagnostic(Diagnostic.Severity.ERROR, "Syntax error at line 4 column 9"),
+                        new Diagnostic(Diagnostic.Severity.ERROR, "Syntax error at line 6 column 12")),
+                generated.context().diagnostics());
+        assertFalse(generated.context().written());
+        assertNull(generated.parser());
+    }
+
+    private static String parser(String actions) throws Exception {
+        final String grammar = """
+                terminal A, B;
+                nonterminal s, e;
+                s ::= e:x B:b {: %s :};
+                e ::= A A;
+                """.formatted(actions);
+        final Grammars.Generated generated = Grammars.generate(new GrammarCompiler(), grammar);
+        assertTrue(generated.context().written(), () -> generated.context().diagnostics().toString());
+        return generated.parser();
+    }
+
+    @Test
+    void leavesTheReductionsWithoutPositionsIfNoActionReadsThem() throws Exception {
+        final String withoutPositions = "    @Override\n    boolean positions() {\n        return false;\n    }\n";
+
+        assertTrue(parser("yield null;").contains(withoutPositions));
+        assertTrue(parser("yield %x%;").contains(withoutPositions));
+        // the tokens always have their position
+        assertTrue(parser("yield %b.line% * 1000 + %b.column%;").contains(withoutPositions));
+        assertTrue(parser("yield %b.symbol%;").contains(withoutPositions));
+
+        assertFalse(parser("yield %x.line%;").contains("positions()"));
+        assertFalse(parser("yield %x.column%;").contains("positions()"));
+        assertFalse(parser("yield %x.symbol%;").contains("positions()"));
+    }
+
+    /**
+     * The parsers generated before the actions were compiled by {@link ActionTemplate}, which must write them the
+     * same.
+     */
+    @ParameterizedTest
+    @CsvSource({"actions.cup, actions.Parser.java, 0", "expr.cup, expr.Parser.java, 1",
+            "src/main/cup/Parser.cup, bundled.Parser.java, 0"})
+    void writesTheParsersAsBefore(String grammar, String expected, int expect) throws Exception {
+        final Grammars.Generated generated = Grammars.generate(new GrammarCompiler().expectConflicts(expect),
+                Grammars.text(grammar));
+
+        assertEquals(Grammars.text("expected/" + expected), generated.parser());
+    }
+}
@@ -0,0 +1,98 @@
+package java_cup;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GrammarDaemonTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Runs a daemon on the given requests, and returns its responses with the times left out.
+     */
+    private List<String> run(String log, String... requests) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ByteArrayOutputStream logs = new ByteArrayOutputStream();
+        final String input = String.join("\n", requests) + "\nquit\n";
+        new GrammarDaemon(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)),
+                new PrintStream(out, true, StandardCharsets.UTF_8),
+                new PrintStream(logs, true, StandardCharsets.UTF_8)).run();
+        Files.writeString(dir.resolve(log), logs.toString(StandardCharsets.UTF_8));
+        return out.toString(StandardCharsets.UTF_8).lines()
+                .map(line -> line.replaceFirst(" [\\d.]+ ms$", ""))
+                .toList();
+    }
+
+    private Path grammar(String name, String text) throws Exception {
+        final Path file = dir.resolve(name);
+        Files.writeString(file, text);
+        return file;
+    }
+
+    private String compile(String options, Path grammar) throws Exception {
+        final Path out = Files.createDirectory(dir.resolve(grammar.getFileName() + ".out"));
+        return "compile " + options + " -destdir " + out + " -destresdir " + out + " " + grammar;
+    }
+
+    private Tables tables(Path grammar) {
+        return Tables.of(dir.resolve(grammar.getFileName() + ".out"));
+    }
+
+    private static Tables built(String grammar, boolean minimize) throws Exception {
+        return Tables.of(Grammars.generate(new GrammarCompiler().minimizeStates(minimize), grammar));
+    }
+
+    @Test
+    void reusesTheMinimizedTablesOnlyIfTheSameProductionsShareTheirCode() throws Exception {
+        final String text = Grammars.text("declarations.cup");
+        final String split = text.replace("LET ID:n EQ e:v SEMI {: yield %n% + \"=\" + %v%; :}",
+                "LET ID:n EQ e:v SEMI {: yield %v% + \"=\" + %n%; :}");
+        final String renamed = text.replace("yield %n% + \"=\" + %v%;", "yield %n% + \" = \" + %v%;");
+        final Path first = grammar("first.cup", text);
+        final Path second = grammar("second.cup", split);
+        final Path third = grammar("third.cup", renamed);
+
+        final List<String> responses = run("daemon.log",
+                compile("-minimize", first), compile("-minimize", second), compile("-minimize", third));
+
+        assertEquals(List.of(
+                "ready " + Main.TITLE,
+                "done " + first + " ok",
+                "done " + second + " ok",
+                "done " + third + " ok",
+                "bye"), responses);
+        final String log = Files.readString(dir.resolve("daemon.log"));
+        assertEquals(1, log.split("Reusing cached tables", -1).length - 1, log);
+        assertEquals(built(text, true), tables(first));
+        assertEquals(built(split, true), tables(second));
+        assertEquals(built(text, true), tables(third));
+        assertNotEquals(tables(first), tables(second));
+    }
+
+    @Test
+    void reusesTheTablesOfTheActionsChanged() throws Exception {
+        final String text = Grammars.text("declarations.cup");
+        final String split = text.replace("LET ID:n EQ e:v SEMI {: yield %n% + \"=\" + %v%; :}",
+                "LET ID:n EQ e:v SEMI {: yield %v% + \"=\" + %n%; :}");
+        final Path first = grammar("first.cup", text);
+        final Path second = grammar("second.cup", split);
+
+        run("daemon.log", compile("", first), compile("", second));
+
+        final String log = Files.readString(dir.resolve("daemon.log"));
+        assertEquals(1, log.split("Reusing cached tables", -1).length - 1, log);
+        assertEquals(built(split, false), tables(second));
+        assertEquals(tables(first), tables(second));
+    }
+}
@@ -0,0 +1,145 @@
+package java_cup;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GrammarProfileTest {
+
+    private static GrammarContext generate(GrammarCompiler compiler, String name) throws Exception {
+        return Grammars.generate(compiler, Grammars.text(name)).context();
+    }
+
+    private static GrammarProfile profile(GrammarContext context) {
+        return GrammarProfile.of(context, context.actionTable(), context.reduceTable);
+    }
+
+    private static NonTerminal nonTerminal(GrammarContext context, String name) {
+        return context.nonTerminals.stream().filter(nt -> nt.name.equals(name)).findFirst().orElseThrow();
+    }
+
+    private static GrammarProfile.Counts sum(GrammarProfile profile, GrammarContext context, String... names) {
+        final GrammarProfile.Counts sum = new GrammarProfile.Counts("sum");
+        for (String name : names) {
+            sum.add(profile.get(nonTerminal(context, name)));
+        }
+        return sum;
+    }
+
+    private static void assertCounts(GrammarProfile.Counts expected, GrammarProfile.Counts actual) {
+        assertEquals(List.of(expected.states, expected.items, expected.cells),
+                List.of(actual.states, actual.items, actual.cells), actual.name);
+    }
+
+    @Test
+    void attributesTheSugarToTheRulesCreatingIt() throws Exception {
+        final GrammarContext context = generate(new GrammarCompiler(), "profile.cup");
+        final GrammarProfile profile = profile(context);
+
+        final Map<String, GrammarProfile.Counts> rules = profile.byRule().stream()
+                .collect(Collectors.toMap(counts -> counts.name, counts -> counts));
+        assertEquals(List.of("s", "item", "tail", "$START"), profile.byRule().stream()
+                .map(counts -> counts.name)
+                .toList());
+        // the list, the option and the inline production of s, with the inner action in front of its tail
+        assertCounts(sum(profile, context, "s", "item$$lst$COMMA", "$IPNT_0", "$IPNT_0$$opt", "$NT7"), rules.get("s"));
+        assertCounts(sum(profile, context, "item", "B$$opt"), rules.get("item"));
+        assertCounts(sum(profile, context, "tail", "$NT9"), rules.get("tail"));
+
+        // a state or a cell may count for several rules, an item for one
+        assertEquals(profile.total().items, rules.values().stream().mapToLong(counts -> counts.items).sum());
+        assertEquals(context.states().size(), profile.total().states);
+    }
+
+    @Test
+    void countsTheInnerActionsApart() throws Exception {
+        final GrammarContext context = generate(new GrammarCompiler(), "profile.cup");
+        final GrammarProfile profile = profile(context);
+
+        assertEquals(GrammarProfile.Kind.ACTION, GrammarProfile.kindOf("$NT7"));
+        final Map<GrammarProfile.Kind, GrammarProfile.Counts> kinds = profile.byKind();
+        assertCounts(sum(profile, context, "$NT7", "$NT9"), kinds.get(GrammarProfile.Kind.ACTION));
+        assertCounts(sum(profile, context, "s", "item", "tail"), kinds.get(GrammarProfile.Kind.USER));
+        assertEquals(2, kinds.get(GrammarProfile.Kind.ACTION).items);
+    }
+
+    @Test
+    void reportsTheProfileAfterTheMachine() throws Exception {
+        final ByteArrayOutputStream log = new ByteArrayOutputStream();
+        final GrammarCompiler compiler = Main.of(new String[]{"-profile-grammar",
+                        Grammars.path("profile.cup").toString()}).compiler()
+                .log(new PrintStream(log, true, StandardCharsets.UTF_8));
+        final GrammarContext context = generate(compiler, "profile.cup");
+        final GrammarProfile profile = profile(context);
+        final GrammarProfile.Counts s = profile.byRule().get(0);
+
+        final String text = log.toString(StandardCharsets.UTF_8);
+        assertTrue(text.contains("===== Grammar Profile =====\n  " + profile.total().states + " states, "
+                + profile.total().items + " items, " + profile.total().cells + " table cells\n"), text);
+        final String rules = text.substring(text.indexOf("  Top rules:\n"), text.indexOf("  Top non terminals:\n"));
+        assertTrue(rules.contains(String.format("    %-32s %8d %8d %8d (%.1f%% of states)%n", "s", s.states,
+                s.items, s.cells, 100.0 * s.states / profile.total().states)), rules);
+        assertFalse(rules.contains("$NT"), rules);
+    }
+
+    private static String budgetError(GrammarContext context) {
+        assertFalse(context.written());
+        final List<Diagnostic> errors = context.diagnostics().stream()
+                .filter(diagnostic -> diagnostic.severity() == Diagnostic.Severity.ERROR)
+                .toList();
+        assertEquals(1, errors.size(), errors::toString);
+        return errors.get(0).message();
+    }
+
+    @Test
+    void abortsOverTheStateBudget() throws Exception {
+        final GrammarCompiler compiler = Main.of(new String[]{"-max-states", "5",
+                        Grammars.path("profile.cup").toString()}).compiler()
+                .log(new PrintStream(PrintStream.nullOutputStream()));
+        final GrammarContext context = generate(compiler, "profile.cup");
+
+        final String error = budgetError(context);
+        assertTrue(error.startsWith("*** State machine budget exceeded, more than 5 states after 6 states and "),
+                error);
+        // the rules of the states built so far, with the sugar in the rules creating it
+        final String rules = error.substring(error.indexOf("  Top rules:\n"), error.indexOf("  Top non terminals:\n"));
+        assertTrue(rules.contains("\n    s "), rules);
+        assertFalse(rules.contains("$$lst"), rules);
+        assertTrue(error.contains("  Top non terminals:\n"), error);
+    }
+
+    @Test
+    void abortsOverTheItemBudget() throws Exception {
+        final GrammarContext context = generate(new GrammarCompiler().maxItems(10), "profile.cup");
+
+        final String error = budgetError(context);
+        assertTrue(error.startsWith("*** State machine budget exceeded, more than 10 items after "), error);
+        assertTrue(error.contains("  Top rules:\n"), error);
+    }
+
+    @Test
+    void abortsOverTheHeapBudget() throws Exception {
+        // the heap is checked every 64 states
+        final GrammarContext context = generate(new GrammarCompiler().maxHeapBytes(1), "src/main/cup/Parser.cup");
+
+        final String error = budgetError(context);
+        assertTrue(error.matches("(?s)\\*\\*\\* State machine budget exceeded, \\d+ MB of heap used, more than 0 MB"
+                + " after 64 states and \\d+ items -- parser generation aborted\n  Top rules:\n.*"), error);
+    }
+
+    @Test
+    void buildsTheMachineWithinTheBudgets() throws Exception {
+        final GrammarContext context = generate(new GrammarCompiler().maxStates(25).maxItems(1000)
+                .maxHeapBytes(Long.MAX_VALUE), "profile.cup");
+
+        assertTrue(context.written());
+        assertEquals(25, context.states().size());
+    }
+}
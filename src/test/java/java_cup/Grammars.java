@@ -0,0 +1,69 @@
+package java_cup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The grammars of the tests, from the resources of this package, and their generation in memory.
+ */
+final class Grammars {
+
+    private Grammars() {
+    }
+
+    /**
+     * The output of a generation.
+     */
+    record Generated(
+            GrammarContext context,
+            OutputSink.InMemory sink
+    ) {
+
+        /**
+         * The source of the parser, without the time of its generation, null if it is not written.
+         */
+        String parser() {
+            final String source = sink.source(context.options.parserClassName + ".java");
+            return source != null ? source.replaceFirst(" \\* @version .*\n", "") : null;
+        }
+
+        /**
+         * The bytes of the given table, like {@code Action}, null if it is not written.
+         */
+        byte[] table(String name) {
+            return sink.resource(context.options.parserClassName + "$" + name + ".data");
+        }
+    }
+
+    /**
+     * The file of the given name in the resources of this package, or in the project if it is a path from its
+     * {@code src} directory, like the bundled {@code src/main/cup/Parser.cup}.
+     */
+    static Path path(String name) {
+        if (name.startsWith("src/")) {
+            return Path.of(name);
+        }
+        try {
+            return Path.of(Grammars.class.getResource(name).toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException(name, e);
+        }
+    }
+
+    static String text(String name) {
+        try {
+            return Files.readString(path(name));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static Generated generate(GrammarCompiler compiler, String grammar) throws IOException {
+        final OutputSink.InMemory sink = new OutputSink.InMemory();
+        return new Generated(compiler.compile(new StringReader(grammar), sink), sink);
+    }
+}
@@ -0,0 +1,92 @@
+package java_cup;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The tables of every way of building them against the ones of the bootstrap generator, which builds the bundled
+ * parser and fills in dense tables from the whole state machine.
+ */
+class ParseTablesTest {
+
+    private static final Path BOOTSTRAP = Path.of("src/main/cup/java_cup_wit-20260418.jar");
+
+    @TempDir
+    Path dir;
+
+    /**
+     * The tables of the given grammar, see {@link Grammars#path(String)}, written by the bootstrap generator.
+     */
+    private Tables reference(String name, int expect) throws Exception {
+        final Process process = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", BOOTSTRAP.toString(), "java_cup.Main",
+                "-expect", String.valueOf(expect), "-destdir", dir.toString(), "-destresdir", dir.toString(),
+                Grammars.path(name).toString())
+                .redirectErrorStream(true)
+                .redirectOutput(dir.resolve("log").toFile())
+                .start();
+        assertEquals(0, process.waitFor(), () -> read(dir.resolve("log")));
+        return Tables.of(dir).canonical();
+    }
+
+    private static String read(Path file) {
+        try {
+            return Files.readString(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Grammars.Generated assertTables(Tables expected, String name, int expect,
+            UnaryOperator<GrammarCompiler> mode) throws IOException {
+        final GrammarCompiler compiler = mode.apply(new GrammarCompiler().expectConflicts(expect));
+        final Grammars.Generated generated = Grammars.generate(compiler, Grammars.text(name));
+        assertTrue(generated.context().written(), () -> generated.context().diagnostics().toString());
+        final Tables actual = Tables.of(generated).canonical();
+        assertArrayEquals(expected.productions(), actual.productions());
+        assertEquals(expected.states(), actual.states());
+        for (int state = 0; state < expected.states(); state++) {
+            assertEquals(expected.actions().get(state), actual.actions().get(state), "actions of state " + state);
+            assertEquals(expected.gotos().get(state), actual.gotos().get(state), "gotos of state " + state);
+        }
+        return generated;
+    }
+
+    @ParameterizedTest
+    @CsvSource({"expr.cup, 1", "keywords.cup, 0", "src/main/cup/Parser.cup, 0"})
+    void buildsTheTablesOfTheBootstrapGenerator(String name, int expect) throws Exception {
+        assertTables(reference(name, expect), name, expect, compiler -> compiler);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"expr.cup, 1", "keywords.cup, 0", "src/main/cup/Parser.cup, 0"})
+    void streamsTheTablesOfTheBootstrapGenerator(String name, int expect) throws Exception {
+        assertTables(reference(name, expect), name, expect, compiler -> compiler.streamTables(true));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"expr.cup, 1", "keywords.cup, 0", "src/main/cup/Parser.cup, 0"})
+    void spillsTheLookaheadsWithoutChangingTheTables(String name, int expect) throws Exception {
+        final File spillDir = dir.resolve("spill").toFile();
+        assertTrue(spillDir.mkdir());
+        final Tables expected = reference(name, expect);
+        final Grammars.Generated spilled = assertTables(expected, name, expect,
+                compiler -> compiler.spillLookaheads(0).spillDir(spillDir));
+        assertTrue(spilled.context().stats().counts().get("spilledBytes") > 0);
+        assertTables(expected, name, expect,
+                compiler -> compiler.spillLookaheads(0).spillDir(spillDir).streamTables(true));
+        // the scratch files go away with their compilation
+        assertArrayEquals(new String[0], spillDir.list());
+    }
+}
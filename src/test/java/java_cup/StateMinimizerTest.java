@@ -0,0 +1,85 @@
+package java_cup;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StateMinimizerTest {
+
+    @Test
+    void mergesTheStatesOfTheSameSuffix() throws Exception {
+        final String grammar = Grammars.text("declarations.cup");
+        final Grammars.Generated built = Grammars.generate(new GrammarCompiler(), grammar);
+        final Grammars.Generated minimized = Grammars.generate(new GrammarCompiler().minimizeStates(true), grammar);
+
+        assertTrue(minimized.context().written());
+        assertTrue(Tables.of(minimized).states() < Tables.of(built).states());
+        assertEquals(Tables.of(minimized).states(), minimized.context().stats().counts().get("minimizedStates"));
+        assertTrue(minimized.table("Action").length < built.table("Action").length);
+    }
+
+    @Test
+    void keepsTheStatesOfDifferentActions() throws Exception {
+        final String grammar = Grammars.text("declarations.cup")
+                .replace("LET ID:n EQ e:v SEMI {: yield %n% + \"=\" + %v%; :}",
+                        "LET ID:n EQ e:v SEMI {: yield %v% + \"=\" + %n%; :}");
+        final Grammars.Generated built = Grammars.generate(new GrammarCompiler(), Grammars.text("declarations.cup"));
+        final Grammars.Generated minimized = Grammars.generate(new GrammarCompiler().minimizeStates(true), grammar);
+        final Grammars.Generated same = Grammars.generate(new GrammarCompiler().minimizeStates(true),
+                Grammars.text("declarations.cup"));
+
+        // the reductions of LET with a value have their own code, they are not the ones of VAR and CONST any more
+        assertTrue(Tables.of(minimized).states() > Tables.of(same).states());
+        assertTrue(Tables.of(minimized).states() < Tables.of(built).states());
+    }
+
+    /**
+     * Feeds the same random inputs to the minimized and the built tables, mostly terminals the state of the built
+     * ones has an action for, so that the runs get deep, and a few errors. The end of the input comes early once it
+     * is valid, so that many runs are accepted.
+     */
+    @ParameterizedTest
+    @CsvSource({"declarations.cup, 0", "expr.cup, 1", "keywords.cup, 0"})
+    void parsesLikeTheTablesAsBuilt(String name, int expect) throws Exception {
+        final String grammar = Grammars.text(name);
+        final Grammars.Generated generated = Grammars.generate(new GrammarCompiler().expectConflicts(expect), grammar);
+        final Tables built = Tables.of(generated);
+        final Tables minimized = Tables.of(Grammars.generate(
+                new GrammarCompiler().expectConflicts(expect).minimizeStates(true), grammar));
+        final int terminals = generated.context().terminals.size();
+
+        final Random random = new Random(name.hashCode());
+        int accepted = 0;
+        for (int i = 0; i < 2000; i++) {
+            final Tables.Run expected = built.run();
+            final Tables.Run actual = minimized.run();
+            final List<Integer> input = new ArrayList<>();
+            while (!expected.ended() && input.size() < 200) {
+                final List<Integer> valid = new ArrayList<>(built.actions().get(expected.state()).keySet());
+                final int terminal;
+                if (random.nextInt(40) == 0 || valid.isEmpty()) {
+                    terminal = random.nextInt(terminals);
+                } else if (valid.contains(0) && random.nextBoolean()) {
+                    terminal = 0;
+                } else {
+                    terminal = valid.get(random.nextInt(valid.size()));
+                }
+                input.add(terminal);
+                expected.feed(terminal);
+                actual.feed(terminal);
+            }
+            assertEquals(expected.trace(), actual.trace(), input::toString);
+            assertEquals(expected.ended(), actual.ended(), input::toString);
+            if (expected.trace().contains("accept")) {
+                accepted++;
+            }
+        }
+        assertTrue(accepted > 50, "accepted " + accepted);
+    }
+}
@@ -0,0 +1,130 @@
+package java_cup;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TableCacheTest {
+
+    private static final String GRAMMAR = Grammars.text("expr.cup");
+
+    @TempDir
+    Path dir;
+
+    private GrammarCompiler compiler() {
+        return new GrammarCompiler().expectConflicts(1).cacheDir(dir.toFile());
+    }
+
+    private static void assertSameTables(Grammars.Generated expected, Grammars.Generated actual) {
+        for (String table : new String[]{"Production", "Action", "Reduce", "Class"}) {
+            assertArrayEquals(expected.table(table), actual.table(table), table);
+        }
+    }
+
+    @Test
+    void reusesTheTablesOfTheSameGrammar() throws Exception {
+        final Grammars.Generated built = Grammars.generate(compiler(), GRAMMAR);
+        assertFalse(built.context().reusedTables());
+        assertTrue(built.context().written());
+        assertEquals(1, Files.list(dir).count());
+
+        final Grammars.Generated reused = Grammars.generate(compiler(), GRAMMAR);
+        assertTrue(reused.context().reusedTables());
+        assertSameTables(built, reused);
+        assertEquals(built.parser(), reused.parser());
+        assertEquals(built.context().diagnostics(), reused.context().diagnostics());
+        assertEquals(1L, reused.context().stats().counts().get("cachedTables"));
+    }
+
+    @Test
+    void reusesTheTablesIfOnlyTheActionsOrTheTypesChanged() throws Exception {
+        final Grammars.Generated built = Grammars.generate(compiler(), GRAMMAR);
+        final String changed = GRAMMAR
+                .replace("yield %a% + %b%;", "yield %b% + %a%;")
+                .replace("nonterminal Integer e;", "nonterminal Number e;");
+
+        final Grammars.Generated reused = Grammars.generate(compiler(), changed);
+        assertTrue(reused.context().reusedTables());
+        assertSameTables(built, reused);
+        assertNotEquals(built.parser(), reused.parser());
+        assertEquals(Grammars.generate(new GrammarCompiler().expectConflicts(1), changed).parser(), reused.parser());
+    }
+
+    @Test
+    void buildsTheTablesOfAnotherSkeleton() throws Exception {
+        Grammars.generate(compiler(), GRAMMAR);
+        final String[] changes = {
+                GRAMMAR.replace("| NUM:$;", "| NUM:$ | NUM NUM;"),
+                GRAMMAR.replace("precedence left TIMES;", "precedence right TIMES;"),
+                GRAMMAR.replace("PLUS e:b {:", "PLUS e:b %prec POW {:"),
+                GRAMMAR.replace("terminal Integer NUM;", "terminal Integer NUM, UNUSED;"),
+        };
+        for (String changed : changes) {
+            final Grammars.Generated built = Grammars.generate(compiler(), changed);
+            assertFalse(built.context().reusedTables(), changed);
+            assertSameTables(Grammars.generate(new GrammarCompiler().expectConflicts(1), changed), built);
+        }
+        assertEquals(1 + changes.length, Files.list(dir).count());
+
+        // the options of the tables are part of the skeleton too
+        assertFalse(Grammars.generate(compiler().minimizeStates(true), GRAMMAR).context().reusedTables());
+        assertTrue(Grammars.generate(compiler().minimizeStates(true), GRAMMAR).context().reusedTables());
+    }
+
+    @Test
+    void buildsTheMinimizedTablesOfActionsReducedAnotherWay() throws Exception {
+        final String grammar = Grammars.text("declarations.cup");
+        Grammars.generate(compiler().minimizeStates(true), grammar);
+
+        // the reductions of LET with a value get their own code, so their states are not merged any more
+        final String split = grammar.replace("LET ID:n EQ e:v SEMI {: yield %n% + \"=\" + %v%; :}",
+                "LET ID:n EQ e:v SEMI {: yield %v% + \"=\" + %n%; :}");
+        final Grammars.Generated built = Grammars.generate(compiler().minimizeStates(true), split);
+        assertFalse(built.context().reusedTables());
+        assertSameTables(Grammars.generate(new GrammarCompiler().minimizeStates(true), split), built);
+
+        // the same code everywhere merges the same states
+        final Grammars.Generated reused = Grammars.generate(compiler().minimizeStates(true),
+                grammar.replace("yield %n% + \"=\" + %v%;", "yield %n% + \" = \" + %v%;"));
+        assertTrue(reused.context().reusedTables());
+        assertSameTables(Grammars.generate(new GrammarCompiler().minimizeStates(true), grammar), reused);
+    }
+
+    @Test
+    void buildsTheTablesIfTheMachineIsDumped() throws Exception {
+        Grammars.generate(compiler(), GRAMMAR);
+        assertFalse(Grammars.generate(compiler().dumpTables(true), GRAMMAR).context().reusedTables());
+        assertFalse(Grammars.generate(compiler().profileGrammar(true), GRAMMAR).context().reusedTables());
+    }
+
+    @Test
+    void buildsTheTablesAgainIfTheEntryIsUnreadable() throws Exception {
+        final Grammars.Generated built = Grammars.generate(compiler(), GRAMMAR);
+        try (var files = Files.list(dir)) {
+            Files.writeString(files.findFirst().orElseThrow(), "broken");
+        }
+
+        final Grammars.Generated rebuilt = Grammars.generate(compiler(), GRAMMAR);
+        assertFalse(rebuilt.context().reusedTables());
+        assertSameTables(built, rebuilt);
+        assertTrue(Grammars.generate(compiler(), GRAMMAR).context().reusedTables());
+    }
+
+    @Test
+    void sharesTheEntriesInMemory() throws Exception {
+        final TableCache cache = new TableCache(null);
+        final Grammars.Generated built = Grammars.generate(new GrammarCompiler().expectConflicts(1).tableCache(cache),
+                GRAMMAR);
+        assertFalse(built.context().reusedTables());
+
+        final Grammars.Generated reused = Grammars.generate(new GrammarCompiler().expectConflicts(1).tableCache(cache),
+                GRAMMAR);
+        assertTrue(reused.context().reusedTables());
+        assertSameTables(built, reused);
+        assertEquals(0, Files.list(dir).count());
+    }
+}
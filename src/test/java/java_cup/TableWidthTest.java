@@ -0,0 +1,79 @@
+package java_cup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TableWidthTest {
+
+    @Test
+    void picksTheNarrowestWidth() {
+        assertEquals(TableWidth.BYTE, TableWidth.of(new int[][]{{0, 127, -128}, null, {}}));
+        assertEquals(TableWidth.SHORT, TableWidth.of(new int[][]{{0, 128}, null}));
+        assertEquals(TableWidth.SHORT, TableWidth.of(new int[][]{{-129}, {32767, -32768}}));
+        assertEquals(TableWidth.INT, TableWidth.of(new int[][]{{1}, {32768}}));
+        assertEquals(TableWidth.INT, TableWidth.of(new int[][]{{-32769}}));
+        assertEquals(TableWidth.BYTE, TableWidth.of(new int[0][]));
+    }
+
+    @Test
+    void narrowsTheRowsToTheirWidth() {
+        final int[][] rows = {{1, -1, 100}, null, {}, {-128, 127}};
+        final byte[][] bytes = (byte[][]) TableWidth.BYTE.narrow(rows);
+        final short[][] shorts = (short[][]) TableWidth.SHORT.narrow(rows);
+        final int[][] ints = (int[][]) TableWidth.INT.narrow(rows);
+
+        assertArrayEquals(new byte[][]{{1, -1, 100}, null, {}, {-128, 127}}, bytes);
+        assertArrayEquals(new short[][]{{1, -1, 100}, null, {}, {-128, 127}}, shorts);
+        assertArrayEquals(rows, ints);
+        assertArrayEquals(rows, Tables.rows(bytes));
+        assertArrayEquals(rows, Tables.rows(shorts));
+        assertArrayEquals(new short[]{-32768, 32767}, (short[]) TableWidth.SHORT.narrow(new int[]{-32768, 32767}));
+    }
+
+    @Test
+    void rejectsTheValuesThatDoNotFit() {
+        assertThrows(InternalException.class, () -> TableWidth.BYTE.narrow(new int[][]{{0}, {128}}));
+        assertThrows(InternalException.class, () -> TableWidth.BYTE.narrow(new int[]{-129}));
+        assertThrows(InternalException.class, () -> TableWidth.SHORT.narrow(new int[]{32768}));
+    }
+
+    /**
+     * A grammar with more states than a byte holds gets short tables, which parse like the byte ones would.
+     */
+    @Test
+    void writesTheTablesOfLargerGrammarsWithShorts() throws Exception {
+        final String names = IntStream.range(0, 200).mapToObj(i -> "T" + i).collect(Collectors.joining(", "));
+        final String grammar = "terminal " + names + ";\nnonterminal s;\ns ::= "
+                + IntStream.range(0, 200).mapToObj(i -> "T" + i + " T" + (199 - i)).collect(Collectors.joining(" | "))
+                + ";\n";
+        final Grammars.Generated generated = Grammars.generate(new GrammarCompiler(), grammar);
+
+        assertTrue(generated.context().written());
+        assertInstanceOf(short[][].class, Tables.read(generated.table("Action")));
+        // every table has its own width, the only goto is the one of s from the start state
+        assertInstanceOf(byte[][].class, Tables.read(generated.table("Reduce")));
+        assertInstanceOf(byte[][].class, Tables.read(generated.table("Production")));
+        final Tables tables = Tables.of(generated);
+        assertTrue(tables.states() > Byte.MAX_VALUE);
+
+        final Tables.Run run = tables.run();
+        // the ids of T150 and T49, after EOF and error
+        run.feed(152);
+        run.feed(51);
+        run.feed(0);
+        assertEquals("accept", run.trace().get(run.trace().size() - 1));
+    }
+
+    @Test
+    void writesTheTablesOfSmallGrammarsWithBytes() throws Exception {
+        final Grammars.Generated generated = Grammars.generate(new GrammarCompiler(), Grammars.text("keywords.cup"));
+
+        assertInstanceOf(byte[][].class, Tables.read(generated.table("Action")));
+        assertInstanceOf(byte[][].class, Tables.read(generated.table("Reduce")));
+        assertInstanceOf(byte[].class, Tables.read(generated.table("Class")));
+    }
+}
@@ -0,0 +1,261 @@
+package java_cup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * The tables of a generated parser decoded to ints, whatever width they are written with, and with the actions by
+ * terminal even if the rows are indexed by class.
+ *
+ * @param productions the left hand side and the length of every production
+ * @param actions     the encoded action of every state by terminal, the errors left out
+ * @param gotos       the state to go to from every state by non terminal
+ */
+record Tables(
+        int[][] productions,
+        List<Map<Integer, Integer>> actions,
+        List<Map<Integer, Integer>> gotos
+) {
+
+    /**
+     * The tables read from the given resources, by the name of the table like {@code Action}.
+     */
+    static Tables of(Function<String, byte[]> resources) {
+        final int[][] actionRows = rows(read(resources.apply("Action")));
+        final int[] classes = values(read(resources.apply("Class")));
+        final List<Map<Integer, Integer>> actions = new ArrayList<>();
+        for (int[] row : actionRows) {
+            final Map<Integer, Integer> actionsOfState = new TreeMap<>();
+            for (int i = 0; i < row.length; i += 2) {
+                if (classes == null) {
+                    actionsOfState.put(row[i], row[i + 1]);
+                    continue;
+                }
+                for (int terminal = 0; terminal < classes.length; terminal++) {
+                    if (classes[terminal] == row[i]) {
+                        actionsOfState.put(terminal, row[i + 1]);
+                    }
+                }
+            }
+            actions.add(actionsOfState);
+        }
+        return new Tables(rows(read(resources.apply("Production"))), actions,
+                pairs(rows(read(resources.apply("Reduce")))));
+    }
+
+    /**
+     * The tables written to the given directory by a parser named {@code Parser}.
+     */
+    static Tables of(Path dir) {
+        return of(name -> {
+            final Path file = dir.resolve("Parser$" + name + ".data");
+            try {
+                return Files.exists(file) ? Files.readAllBytes(file) : null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    static Tables of(Grammars.Generated generated) {
+        return of(generated::table);
+    }
+
+    /**
+     * These tables with the states numbered in the order they are reached from the start state, by their actions
+     * then their gotos, so that the tables of the same state machine are equal however it numbers its states.
+     */
+    Tables canonical() {
+        final int[] numbers = new int[states()];
+        Arrays.fill(numbers, -1);
+        final List<Integer> order = new ArrayList<>();
+        numbers[0] = 0;
+        order.add(0);
+        for (int i = 0; i < order.size(); i++) {
+            final int state = order.get(i);
+            final List<Integer> successors = new ArrayList<>();
+            for (int action : actions.get(state).values()) {
+                if (action > 0) {
+                    successors.add(action - 1);
+                }
+            }
+            successors.addAll(gotos.get(state).values());
+            for (int successor : successors) {
+                if (numbers[successor] < 0) {
+                    numbers[successor] = order.size();
+                    order.add(successor);
+                }
+            }
+        }
+        final List<Map<Integer, Integer>> canonicalActions = new ArrayList<>();
+        final List<Map<Integer, Integer>> canonicalGotos = new ArrayList<>();
+        for (int state : order) {
+            final Map<Integer, Integer> actionsOfState = new TreeMap<>();
+            actions.get(state).forEach((terminal, action) ->
+                    actionsOfState.put(terminal, action > 0 ? numbers[action - 1] + 1 : action));
+            canonicalActions.add(actionsOfState);
+            final Map<Integer, Integer> gotosOfState = new TreeMap<>();
+            gotos.get(state).forEach((nonTerminal, target) -> gotosOfState.put(nonTerminal, numbers[target]));
+            canonicalGotos.add(gotosOfState);
+        }
+        return new Tables(productions, canonicalActions, canonicalGotos);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Tables tables && Arrays.deepEquals(productions, tables.productions)
+                && actions.equals(tables.actions) && gotos.equals(tables.gotos);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.deepHashCode(productions) * 31 + actions.hashCode();
+    }
+
+    int states() {
+        return actions.size();
+    }
+
+    /**
+     * The encoded action of the given state under the given terminal, zero for an error.
+     */
+    int action(int state, int terminal) {
+        return actions.get(state).getOrDefault(terminal, 0);
+    }
+
+    /**
+     * The state to go to from the given state with the given non terminal, -1 for an error.
+     */
+    int go(int state, int nonTerminal) {
+        return gotos.get(state).getOrDefault(nonTerminal, -1);
+    }
+
+    /**
+     * A run of the tables on terminals fed one by one, which records the left hand side and the length of every
+     * production it reduces with, then {@code accept} or the index of the terminal with an error.
+     */
+    final class Run {
+
+        private final List<Integer> stack = new ArrayList<>(List.of(0));
+        private final List<String> trace = new ArrayList<>();
+        private int fed;
+        private boolean ended;
+
+        int state() {
+            return stack.get(stack.size() - 1);
+        }
+
+        boolean ended() {
+            return ended;
+        }
+
+        List<String> trace() {
+            return trace;
+        }
+
+        /**
+         * Makes the actions of the given terminal, the end of the input being terminal zero.
+         */
+        void feed(int terminal) {
+            while (!ended) {
+                final int action = action(state(), terminal);
+                if (action > 0) {
+                    stack.add(action - 1);
+                    if (terminal != 0) {
+                        break;
+                    }
+                } else if (action < 0) {
+                    final int[] production = productions[-action - 1];
+                    trace.add(production[0] + "/" + production[1]);
+                    stack.subList(stack.size() - production[1], stack.size()).clear();
+                    final int target = go(state(), production[0]);
+                    if (target < 0) {
+                        trace.add(stack.size() == 1 ? "accept" : "no goto");
+                        ended = true;
+                    } else {
+                        stack.add(target);
+                    }
+                } else {
+                    trace.add("error at " + fed);
+                    ended = true;
+                }
+            }
+            fed++;
+        }
+    }
+
+    Run run() {
+        return new Run();
+    }
+
+    private static List<Map<Integer, Integer>> pairs(int[][] rows) {
+        final List<Map<Integer, Integer>> maps = new ArrayList<>();
+        for (int[] row : rows) {
+            final Map<Integer, Integer> map = new TreeMap<>();
+            for (int i = 0; row != null && i < row.length; i += 2) {
+                map.put(row[i], row[i + 1]);
+            }
+            maps.add(map);
+        }
+        return maps;
+    }
+
+    /**
+     * The table serialized in the given bytes, null for null.
+     */
+    static Object read(byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            return in.readObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The given byte, short or int rows as int rows, the null rows stay null.
+     */
+    static int[][] rows(Object data) {
+        final Object[] rows = (Object[]) data;
+        final int[][] ints = new int[rows.length][];
+        for (int i = 0; i < rows.length; i++) {
+            ints[i] = values(rows[i]);
+        }
+        return ints;
+    }
+
+    /**
+     * The given byte, short or int values as ints, null for null.
+     */
+    static int[] values(Object data) {
+        if (data instanceof byte[] values) {
+            final int[] ints = new int[values.length];
+            for (int i = 0; i < values.length; i++) {
+                ints[i] = values[i];
+            }
+            return ints;
+        }
+        if (data instanceof short[] values) {
+            final int[] ints = new int[values.length];
+            for (int i = 0; i < values.length; i++) {
+                ints[i] = values[i];
+            }
+            return ints;
+        }
+        return (int[]) data;
+    }
+}
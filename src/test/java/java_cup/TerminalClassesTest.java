@@ -0,0 +1,75 @@
+package java_cup;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TerminalClassesTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void groupsTheTerminalsWithTheSameActions() {
+        // terminals 1 and 3 have the same actions, terminal 4 has none
+        final TerminalClasses.Result classified = TerminalClasses.classify(new int[][]{
+                {0, 2, 1, -1, 2, 3, 3, -1},
+                {1, 4, 2, -2, 3, 4},
+                {},
+        }, 5);
+
+        assertArrayEquals(new int[]{0, 1, 2, 1, 3}, classified.classes());
+        assertEquals(4, classified.classCount());
+        assertArrayEquals(new int[][]{{0, 2, 1, -1, 2, 3}, {1, 4, 2, -2}, {}}, classified.actions());
+    }
+
+    @Test
+    void indexesTheActionRowsByClass() throws Exception {
+        final Grammars.Generated generated = Grammars.generate(new GrammarCompiler(), Grammars.text("keywords.cup"));
+        final int[] classes = Tables.values(Tables.read(generated.table("Class")));
+        final int terminals = generated.context().terminals.size();
+
+        assertEquals(terminals, classes.length);
+        final long classCount = generated.context().stats().counts().get("terminalClasses");
+        assertTrue(classCount < terminals);
+        // the reserved words are used nowhere, they share the class with no actions
+        final int reserved = classes[terminals - 1];
+        for (int terminal = terminals - 4; terminal < terminals; terminal++) {
+            assertEquals(reserved, classes[terminal]);
+        }
+        final Tables tables = Tables.of(generated);
+        for (int state = 0; state < tables.states(); state++) {
+            for (int terminal = terminals - 4; terminal < terminals; terminal++) {
+                assertEquals(0, tables.action(state, terminal));
+            }
+        }
+    }
+
+    @Test
+    void leavesTheRowsByTerminalIfEveryTerminalIsAClass() throws Exception {
+        final Grammars.Generated generated = Grammars.generate(new GrammarCompiler(),
+                Files.readString(Path.of("src/main/cup/Parser.cup")));
+
+        assertTrue(generated.context().written());
+        assertNull(generated.table("Class"));
+        assertEquals(generated.context().terminals.size(),
+                generated.context().stats().counts().get("terminalClasses"));
+    }
+
+    @Test
+    void deletesTheClassTableOfThePreviousGeneration() throws Exception {
+        final OutputSink sink = OutputSink.directories(dir.toFile(), dir.toFile());
+        final Path classes = dir.resolve("Parser$Class.data");
+        new GrammarCompiler().compile(new StringReader(Grammars.text("keywords.cup")), sink);
+        assertTrue(Files.exists(classes));
+
+        new GrammarCompiler().compile(Path.of("src/main/cup/Parser.cup"), sink);
+        assertFalse(Files.exists(classes));
+        assertTrue(Files.exists(dir.resolve("Parser$Action.data")));
+    }
+}
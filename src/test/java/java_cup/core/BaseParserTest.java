@@ -0,0 +1,117 @@
+package java_cup.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BaseParserTest {
+
+    static final String GRAMMAR = """
+            terminal A, B;
+            nonterminal s, t;
+            s ::= A t;
+            t ::= B | t B;
+            u ::= A;
+            """;
+
+    @Test
+    void recoversAtTheNextProduction() throws Exception {
+        final TreeParser parser = new TreeParser();
+        final Object value = parser.parse(GRAMMAR.replace("t ::= B |", "t ::= ) B |"));
+
+        assertEquals(List.of("Syntax error at line 4 column 7"), parser.syntaxErrors);
+        final String tree = String.valueOf(value);
+        assertTrue(tree.contains(" null 11)"), tree);
+        assertTrue(tree.contains("u 14"), tree);
+    }
+
+    @Test
+    void reportsTheErrorsOfEveryProduction() throws Exception {
+        final TreeParser parser = new TreeParser();
+        parser.parse(GRAMMAR.replace("t ::= B |", "t ::= ) B |").replace("u ::= A", "u ::= A ( A"));
+
+        assertEquals(List.of("Syntax error at line 4 column 7", "Syntax error at line 5 column 12"),
+                parser.syntaxErrors);
+    }
+
+    @Test
+    void reportsOnceUntilTokensAreShiftedAgain() throws Exception {
+        final TreeParser parser = new TreeParser();
+        parser.parse(GRAMMAR.replace("t ::= B |", "t ::= ) ) ( B |"));
+
+        assertEquals(List.of("Syntax error at line 4 column 7"), parser.syntaxErrors);
+    }
+
+    @Test
+    void abortsWithoutAStateShiftingError() {
+        final TreeParser parser = new TreeParser();
+        final RuntimeException e = assertThrows(RuntimeException.class,
+                () -> parser.parse(GRAMMAR.replace("terminal A, B;", "terminal A,, B;")));
+
+        assertEquals("Syntax error at line 1 column 12", e.getMessage());
+        assertEquals(List.of("Syntax error at line 1 column 12"), parser.syntaxErrors);
+    }
+
+    @Test
+    void abortsAtTheEndOfTheInputWhileDiscarding() {
+        final TreeParser parser = new TreeParser();
+        final RuntimeException e = assertThrows(RuntimeException.class,
+                () -> parser.parse(GRAMMAR.replace("u ::= A;", "u ::= ) A")));
+
+        assertEquals("Syntax error at line 5 column 7", e.getMessage());
+    }
+
+    @Test
+    void abortsAfterTooManyErrors() {
+        final TreeParser parser = new TreeParser();
+        parser.maxSyntaxErrors = 2;
+        final RuntimeException e = assertThrows(RuntimeException.class, () -> parser.parse(GRAMMAR
+                .replace("s ::= A", "s ::= ( A").replace("t ::= B |", "t ::= ) B |").replace("u ::= A", "u ::= ( A")));
+
+        assertEquals("Too many syntax errors, giving up after: Syntax error at line 4 column 7", e.getMessage());
+        assertEquals(2, parser.syntaxErrors.size());
+    }
+
+    @Test
+    void pushesLikeItPulls() throws Exception {
+        for (String text : new String[]{GRAMMAR, GRAMMAR.replace("t ::= B |", "t ::= ) B |"),
+                GRAMMAR.replace("u ::= A", "u ::= ( A")}) {
+            final TreeParser pull = new TreeParser(TreeParser.PRODUCTION_LIST);
+            final Object pulled = pull.parse(text);
+
+            final TreeParser push = new TreeParser(TreeParser.PRODUCTION_LIST);
+            final Symbol[] tokens = TreeParser.tokens(text);
+            push.start();
+            for (int i = 0; i < tokens.length; i++) {
+                assertEquals(i < tokens.length - 1, push.feed(tokens[i]));
+            }
+            assertEquals(pulled, push.result().value);
+            assertEquals(pull.syntaxErrors, push.syntaxErrors);
+        }
+    }
+
+    @Test
+    void pushesUntilTheInputIsAccepted() throws Exception {
+        final TreeParser parser = new TreeParser();
+        assertThrows(IllegalStateException.class, () -> parser.feed(new Symbol(Tokens.EOF, null)));
+
+        parser.start();
+        final Symbol[] tokens = TreeParser.tokens("terminal A; s ::= A;");
+        for (int i = 0; i < tokens.length - 1; i++) {
+            assertTrue(parser.feed(tokens[i]));
+            assertThrows(IllegalStateException.class, parser::result);
+        }
+        assertFalse(parser.feed(tokens[tokens.length - 1]));
+        assertEquals(new TreeParser().parse("terminal A; s ::= A;"), parser.result().value);
+        assertThrows(IllegalStateException.class, () -> parser.feed(new Symbol(Tokens.EOF, null)));
+
+        // a new start parses again
+        parser.start();
+        for (Symbol token : TreeParser.tokens("terminal B; t ::= B;")) {
+            parser.feed(token);
+        }
+        assertEquals(new TreeParser().parse("terminal B; t ::= B;"), parser.result().value);
+    }
+}
@@ -0,0 +1,126 @@
+package java_cup.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchParserTest {
+
+    /**
+     * Inputs of growing sizes, every fifth one with a syntax error recovered from, every seventh one with one that
+     * is not.
+     */
+    private static List<String> inputs(int count) {
+        final List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final StringBuilder text = new StringBuilder("terminal A, B;\nnonterminal s;\n");
+            for (int j = 0; j <= (i * 7) % 23; j++) {
+                text.append("s").append(j).append(" ::= A s | B ").append(j % 2 == 0 ? "A" : "B").append(";\n");
+            }
+            if (i % 5 == 0) {
+                text.append("t ::= ) A;\n");
+            }
+            if (i % 7 == 0) {
+                text.insert(0, "terminal ;\n");
+            }
+            inputs.add(text.toString());
+        }
+        return inputs;
+    }
+
+    private static List<Reader> readers(List<String> inputs) {
+        return inputs.stream().<Reader>map(StringReader::new).toList();
+    }
+
+    @Test
+    void returnsTheResultsInInputOrder() throws Exception {
+        final List<String> inputs = inputs(60);
+        final BatchParser.Batch batch;
+        try (BatchParser parser = new BatchParser(TreeParser::new, 4)) {
+            batch = parser.parse(readers(inputs));
+        }
+
+        assertEquals(inputs.size(), batch.results().size());
+        for (int i = 0; i < inputs.size(); i++) {
+            final BatchParser.Result result = batch.results().get(i);
+            final String input = inputs.get(i);
+            assertEquals(i, result.index());
+            final TreeParser sequential = new TreeParser();
+            if (i % 7 == 0) {
+                final RuntimeException e = assertThrows(RuntimeException.class,
+                        () -> sequential.parse(input));
+                assertNull(result.value());
+                assertEquals(List.of(e.getMessage()), result.errors());
+            } else {
+                assertEquals(sequential.parse(input), result.value());
+                assertEquals(sequential.syntaxErrors, result.errors());
+            }
+            assertEquals(i % 5 != 0 && i % 7 != 0, result.success(), "input " + i);
+        }
+    }
+
+    @Test
+    void countsTheFailuresAndTheLatencies() throws Exception {
+        final List<String> inputs = inputs(35);
+        final BatchParser.Batch batch;
+        try (BatchParser parser = new BatchParser(TreeParser::new, 3)) {
+            batch = parser.parse(readers(inputs));
+        }
+
+        final BatchParser.Stats stats = batch.stats();
+        assertEquals(35, stats.inputs());
+        // inputs 0, 5, 7, 10, 14, 15, 20, 21, 25, 28, 30
+        assertEquals(11, stats.failures());
+        assertEquals(batch.results().stream().mapToLong(BatchParser.Result::nanos).sum(), stats.totalNanos());
+        assertEquals(stats.totalNanos() / 35, stats.meanNanos());
+        assertTrue(stats.minNanos() > 0);
+        assertTrue(stats.minNanos() <= stats.medianNanos());
+        assertTrue(stats.medianNanos() <= stats.p99Nanos());
+        assertTrue(stats.p99Nanos() <= stats.maxNanos());
+        assertEquals(batch.results().stream().mapToLong(BatchParser.Result::nanos).max().orElseThrow(),
+                stats.maxNanos());
+        assertTrue(stats.wallNanos() > 0);
+        assertTrue(stats.throughput() > 0);
+        assertTrue(stats.toString().startsWith("35 inputs (11 failed) in "), stats.toString());
+    }
+
+    @Test
+    void parsesAnEmptyBatch() throws Exception {
+        try (BatchParser parser = new BatchParser(TreeParser::new, 2)) {
+            final BatchParser.Batch batch = parser.parse(List.of());
+            assertEquals(List.of(), batch.results());
+            assertEquals(0, batch.stats().inputs());
+            assertEquals(0, batch.stats().maxNanos());
+            assertEquals(0, batch.stats().meanNanos());
+        }
+    }
+
+    @Test
+    void leavesAGivenExecutorRunning() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final List<String> inputs = inputs(8);
+            try (BatchParser parser = new BatchParser(TreeParser::new, executor, 2)) {
+                assertEquals(8, parser.parse(readers(inputs)).results().size());
+            }
+            assertFalse(executor.isShutdown());
+            try (BatchParser parser = new BatchParser(TreeParser::new, executor, 1)) {
+                assertEquals(8, parser.parse(readers(inputs)).results().size());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void rejectsNoParallelism() {
+        assertThrows(IllegalArgumentException.class, () -> new BatchParser(TreeParser::new, 0));
+    }
+}
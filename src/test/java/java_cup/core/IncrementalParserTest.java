@@ -0,0 +1,155 @@
+package java_cup.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalParserTest {
+
+    static final String TEXT = """
+            package a.b;
+            import a.b.C;
+            terminal A, B, C;
+            terminal String ID;
+            nonterminal s, t, u;
+            precedence left A, B;
+            s ::= A t:x u {: yield %x%; :} | B;
+            t ::= B | t B | (A C)[] ?;
+            u ::= C[A] | ID:id {: yield "u" + %id%; :};
+            v ::= s t u | u t s;
+            """;
+
+    /**
+     * Parses the text, edits it and checks the reparse against a full parse of the edited text.
+     */
+    private static IncrementalParser assertEdit(Supplier<TreeParser> parsers, String text, int offset, int removed,
+                                                String inserted) throws Exception {
+        final IncrementalParser incremental = new IncrementalParser(parsers.get());
+        assertEquals(parsers.get().parse(text), incremental.parse(text).value);
+
+        final String edited = text.substring(0, offset) + inserted + text.substring(offset + removed);
+        assertEquals(parsers.get().parse(edited), incremental.edit(offset, removed, inserted).value, edited);
+        return incremental;
+    }
+
+    private static IncrementalParser assertEdit(int offset, int removed, String inserted) throws Exception {
+        return assertEdit(TreeParser::new, TEXT, offset, removed, inserted);
+    }
+
+    /**
+     * The syntax error of a full parse of the given text.
+     */
+    private static String syntaxError(String text) throws Exception {
+        final TreeParser parser = new TreeParser();
+        parser.parse(text);
+        assertEquals(1, parser.syntaxErrors.size(), text);
+        return parser.syntaxErrors.get(0);
+    }
+
+    @Test
+    void insertsAtTheStart() throws Exception {
+        assertEdit(0, 0, "// x\n");
+    }
+
+    @Test
+    void deletesAtTheStart() throws Exception {
+        assertEdit(0, TEXT.indexOf("terminal"), "");
+    }
+
+    @Test
+    void editsAtTheStart() throws Exception {
+        assertEdit(8, 3, "c.d.e");
+    }
+
+    @Test
+    void insertsAtTheEnd() throws Exception {
+        assertEdit(TEXT.length(), 0, "w ::= A | w B;\n");
+    }
+
+    @Test
+    void deletesAtTheEnd() throws Exception {
+        assertEdit(TEXT.indexOf("v ::="), TEXT.length() - TEXT.indexOf("v ::="), "");
+    }
+
+    @Test
+    void editsAtTheEnd() throws Exception {
+        assertEdit(TEXT.lastIndexOf("s;"), 1, "t");
+    }
+
+    @Test
+    void editsInTheMiddle() throws Exception {
+        final int offset = TEXT.indexOf("t ::= B");
+        final IncrementalParser incremental = assertEdit(offset + 6, 1, "C C");
+
+        assertTrue(incremental.reusedNodes() > 0);
+        assertTrue(incremental.scannedTokens() < 10, "scanned " + incremental.scannedTokens());
+    }
+
+    @Test
+    void editsInsideCode() throws Exception {
+        final int offset = TEXT.indexOf("%x%");
+        assertEdit(offset, 0, ":} A {: ");
+        assertEdit(offset, 0, "\n return; ");
+    }
+
+    @Test
+    void editsTheLists() throws Exception {
+        final int offset = TEXT.indexOf("B, C;");
+        final Supplier<TreeParser> parsers = () -> new TreeParser(TreeParser.PRODUCTION_LIST);
+        assertEdit(parsers, TEXT, offset, 0, "D, ");
+        assertEdit(parsers, TEXT, TEXT.indexOf("t ::="), 0, "x ::= A;\n");
+        assertEdit(parsers, TEXT, TEXT.indexOf("u ::="), TEXT.indexOf("v ::=") - TEXT.indexOf("u ::="), "");
+    }
+
+    @Test
+    void editsAgainAndAgain() throws Exception {
+        final IncrementalParser incremental = new IncrementalParser(new TreeParser());
+        final StringBuilder text = new StringBuilder(TEXT);
+        incremental.parse(text);
+        final String[] lines = {"t ::= B;\n", "u ::= C | ID;\n", "x ::= s | t | u;\n"};
+        final int productions = TEXT.indexOf("s ::=");
+        for (int i = 0; i < 12; i++) {
+            final int offset = text.indexOf("\n", productions + (i * 37) % (text.length() - productions)) + 1;
+            final String line = lines[i % lines.length];
+            text.insert(offset, line);
+            assertEquals(new TreeParser().parse(text.toString()), incremental.edit(offset, 0, line).value);
+            if (i % 3 == 2) {
+                text.delete(offset, offset + line.length());
+                assertEquals(new TreeParser().parse(text.toString()), incremental.edit(offset, line.length(), "")
+                        .value);
+            }
+        }
+    }
+
+    @Test
+    void parsesAllAgainAfterAFailedParse() throws Exception {
+        final String text = TEXT + "w ::= ) A;\n";
+        final IncrementalParser incremental = new IncrementalParser(new TreeParser());
+        final RuntimeException e = assertThrows(RuntimeException.class, () -> incremental.parse(text));
+        assertEquals(syntaxError(text), e.getMessage());
+
+        final int offset = text.lastIndexOf(")");
+        assertEquals(new TreeParser().parse(TEXT + "w ::=  A;\n"), incremental.edit(offset, 1, "").value);
+        assertEquals(0, incremental.reusedNodes());
+        assertEquals(new TreeParser().parse(TEXT + "w ::= B A;\n"), incremental.edit(offset, 0, "B").value);
+        assertTrue(incremental.reusedNodes() > 0);
+    }
+
+    @Test
+    void reportsSyntaxErrorsWhereTheTokensMoved() throws Exception {
+        final IncrementalParser incremental = new IncrementalParser(new TreeParser());
+        final StringBuilder text = new StringBuilder(TEXT + "w ::= A A;\n");
+        incremental.parse(text);
+        text.insert(0, "\n\n");
+        incremental.edit(0, 0, "\n\n");
+
+        // the error is at a token after the edit, on the same line, which is not scanned again
+        final int offset = text.indexOf("w ::=");
+        text.insert(offset, "v ::= ");
+        final RuntimeException e = assertThrows(RuntimeException.class, () -> incremental.edit(offset, 0, "v ::= "));
+        assertEquals(syntaxError(text.toString()), e.getMessage());
+        assertEquals("Syntax error at line 13 column 9", e.getMessage());
+    }
+}
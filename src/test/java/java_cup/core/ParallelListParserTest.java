@@ -0,0 +1,137 @@
+package java_cup.core;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelListParserTest {
+
+    private static final int PRODUCTIONS = 120;
+    private static final int CHUNKS = 8;
+    /**
+     * The value of a production of the list, with its name.
+     */
+    private static final Pattern ELEMENT = Pattern.compile("\\(\\d+ (p\\d+) 14 ");
+
+    private static ExecutorService executor;
+
+    @BeforeAll
+    static void startExecutor() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterAll
+    static void stopExecutor() {
+        executor.shutdown();
+    }
+
+    private static String text(int broken) {
+        final StringBuilder text = new StringBuilder("terminal A, B;\nnonterminal s;\n");
+        for (int i = 0; i < PRODUCTIONS; i++) {
+            text.append('p').append(i).append(" ::= ").append(i == broken ? ") " : "")
+                    .append("A p").append(i + 1).append(" | B (A B)[] ?;\n");
+        }
+        return text.toString();
+    }
+
+    /**
+     * The parsers of the list of productions, counting the reductions of every production by its name.
+     */
+    private static Supplier<TreeParser> parsers(Map<String, Integer> reductions) {
+        return () -> {
+            final TreeParser parser = new TreeParser(TreeParser.PRODUCTION_LIST);
+            parser.reduced = value -> {
+                final Matcher matcher = ELEMENT.matcher(String.valueOf(value));
+                if (matcher.lookingAt()) {
+                    reductions.merge(matcher.group(1), 1, Integer::sum);
+                }
+            };
+            return parser;
+        };
+    }
+
+    private static Object parse(Supplier<TreeParser> parsers, String text) throws Exception {
+        return new ParallelListParser(parsers, executor, TreeParser.PRODUCTION_LIST, Tokens.SEMI)
+                .parse(new Lexer(new StringReader(text)), CHUNKS).value;
+    }
+
+    @Test
+    void parsesLikeTheSequentialParse() throws Exception {
+        final String text = text(-1);
+        final Map<String, Integer> sequential = new ConcurrentHashMap<>();
+        final Object expected = parsers(sequential).get().parse(text);
+        final Map<String, Integer> chunked = new ConcurrentHashMap<>();
+
+        assertEquals(expected, parse(parsers(chunked), text));
+        assertEquals(PRODUCTIONS, chunked.size());
+        assertEquals(sequential, chunked);
+    }
+
+    @Test
+    void parsesAFailedChunkOnly() throws Exception {
+        final String text = text(PRODUCTIONS / 2);
+        final TreeParser sequential = parsers(new ConcurrentHashMap<>()).get();
+        final Object expected = sequential.parse(text);
+        assertEquals(1, sequential.syntaxErrors.size());
+        final Map<String, Integer> chunked = new ConcurrentHashMap<>();
+
+        assertEquals(expected, parse(parsers(chunked), text));
+
+        // the productions of the failed chunk before the error are reduced by it and again by the main parser, the
+        // productions of the other chunks only once
+        final int chunk = PRODUCTIONS / CHUNKS + 1;
+        final long twice = chunked.values().stream().filter(count -> count == 2).count();
+        assertTrue(twice > 0 && twice < chunk, chunked.toString());
+        for (int i = 0; i < PRODUCTIONS; i++) {
+            final int count = chunked.getOrDefault("p" + i, 0);
+            if (i < PRODUCTIONS / 2 - chunk || i > PRODUCTIONS / 2 + chunk) {
+                assertEquals(1, count, "p" + i);
+            } else {
+                assertTrue(count <= 2, "p" + i);
+            }
+        }
+    }
+
+    @Test
+    void endsTheParseEventOfEveryChunk() throws Exception {
+        final Path file = Files.createTempFile("parse", ".jfr");
+        final String text = text(PRODUCTIONS / 3);
+        try (Recording recording = new Recording()) {
+            recording.enable(ParseMetrics.ParseEvent.class).withoutThreshold();
+            recording.start();
+            parse(() -> {
+                final TreeParser parser = new TreeParser(TreeParser.PRODUCTION_LIST);
+                parser.metrics = new ParseMetrics();
+                return parser;
+            }, text);
+            recording.stop();
+            recording.dump(file);
+
+            final List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().equals("java_cup.Parse"))
+                    .toList();
+            // the main parse and one per chunk, the failed one not accepted
+            assertTrue(events.size() > 2, events.toString());
+            assertEquals(1, events.stream().filter(event -> !event.getBoolean("accepted")).count());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package java_cup.core;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParseMetricsTest {
+
+    private static TreeParser instrumented() {
+        final TreeParser parser = new TreeParser();
+        parser.metrics = new ParseMetrics();
+        return parser;
+    }
+
+    @Test
+    void countsTheWorkOfTheParses() throws Exception {
+        final TreeParser parser = instrumented();
+        final int[] reduced = new int[1];
+        parser.reduced = value -> reduced[0]++;
+        parser.parse(BaseParserTest.GRAMMAR);
+        final int tokens = TreeParser.tokens(BaseParserTest.GRAMMAR).length;
+
+        final ParseMetrics.Snapshot snapshot = parser.metrics.snapshot();
+        assertEquals(1, snapshot.parses());
+        assertEquals(tokens, snapshot.shifts());
+        // the start production is reduced without telling
+        assertEquals(reduced[0] + 1, snapshot.reductions());
+        assertEquals(snapshot.reductions(), Arrays.stream(snapshot.productionReductions()).sum());
+        assertEquals(snapshot.reductions(), snapshot.gotoLookups());
+        // every step looks up one action, to shift or to reduce
+        assertEquals(snapshot.shifts() + snapshot.reductions(), snapshot.actionLookups());
+        assertEquals(snapshot.actionLookups(), Arrays.stream(snapshot.stateActions()).sum());
+        assertTrue(snapshot.maxStackDepth() > 1);
+        assertTrue(snapshot.meanSearchLength() >= 1, snapshot::toString);
+        assertEquals((double) snapshot.searchedEntries() / snapshot.actionLookups(), snapshot.meanSearchLength());
+
+        parser.parse(BaseParserTest.GRAMMAR);
+        final ParseMetrics.Snapshot twice = parser.metrics.snapshot();
+        assertEquals(2, twice.parses());
+        assertEquals(2 * snapshot.shifts(), twice.shifts());
+        assertEquals(snapshot.maxStackDepth(), twice.maxStackDepth());
+    }
+
+    @Test
+    void ranksTheHottestProductionsAndStates() throws Exception {
+        final TreeParser parser = instrumented();
+        parser.parse(BaseParserTest.GRAMMAR);
+        final ParseMetrics.Snapshot snapshot = parser.metrics.snapshot();
+
+        final long[] counts = snapshot.productionReductions();
+        final int[] hottest = snapshot.hottestProductions(Integer.MAX_VALUE);
+        assertEquals(Arrays.stream(counts).filter(count -> count != 0).count(), hottest.length);
+        for (int i = 1; i < hottest.length; i++) {
+            assertTrue(counts[hottest[i - 1]] >= counts[hottest[i]]);
+        }
+        assertArrayEquals(Arrays.copyOf(hottest, 2), snapshot.hottestProductions(2));
+        assertEquals(Arrays.stream(counts).max().orElseThrow(), counts[hottest[0]]);
+
+        final int[] states = snapshot.hottestStates(3);
+        assertEquals(3, states.length);
+        assertEquals(Arrays.stream(snapshot.stateActions()).max().orElseThrow(), snapshot.stateActions()[states[0]]);
+        assertTrue(snapshot.toString().contains("production " + hottest[0] + ": " + counts[hottest[0]]));
+    }
+
+    @Test
+    void startsOverOnReset() throws Exception {
+        final TreeParser parser = instrumented();
+        parser.parse(BaseParserTest.GRAMMAR);
+        parser.metrics.reset();
+
+        final ParseMetrics.Snapshot snapshot = parser.metrics.snapshot();
+        assertEquals(0, snapshot.parses());
+        assertEquals(0, snapshot.shifts() + snapshot.reductions() + snapshot.actionLookups()
+                + snapshot.searchedEntries() + snapshot.gotoLookups() + snapshot.maxStackDepth());
+        assertEquals(0, Arrays.stream(snapshot.productionReductions()).sum());
+        assertEquals(0, Arrays.stream(snapshot.stateActions()).sum());
+        assertEquals(0, snapshot.meanSearchLength());
+        assertArrayEquals(new int[0], snapshot.hottestProductions(10));
+    }
+
+    @Test
+    void endsTheParseWhoseActionFails() throws Exception {
+        final Path file = Files.createTempFile("parse", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(ParseMetrics.ParseEvent.class).withoutThreshold();
+            recording.enable(ParseMetrics.ProductionEvent.class).withoutThreshold();
+            recording.start();
+            final TreeParser parser = instrumented();
+            parser.reduced = value -> {
+                throw new IllegalStateException("failed");
+            };
+            assertThrows(IllegalStateException.class, () -> parser.parse(BaseParserTest.GRAMMAR));
+            parser.reduced = null;
+            parser.parse(BaseParserTest.GRAMMAR);
+            recording.stop();
+            recording.dump(file);
+
+            final List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            final List<RecordedEvent> parses = events.stream()
+                    .filter(event -> event.getEventType().getName().equals("java_cup.Parse"))
+                    .toList();
+            assertEquals(2, parses.size(), parses.toString());
+            assertFalse(parses.get(0).getBoolean("accepted"));
+            // the reduction whose action failed is not counted
+            assertEquals(0, parses.get(0).getLong("reductions"));
+            assertTrue(parses.get(1).getBoolean("accepted"));
+
+            // the reductions of the failed parse are not told again with the next one
+            final long reductions = events.stream()
+                    .filter(event -> event.getEventType().getName().equals("java_cup.ProductionReductions"))
+                    .mapToLong(event -> event.getLong("reductions"))
+                    .sum();
+            assertEquals(parses.get(0).getLong("reductions") + parses.get(1).getLong("reductions"), reductions);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
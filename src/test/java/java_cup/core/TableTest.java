@@ -0,0 +1,111 @@
+package java_cup.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TableTest {
+
+    /**
+     * Rows of pairs sorted by key with every key under the given bound, short ones for the linear search and long
+     * ones for the binary search, and a null row.
+     */
+    private static int[][] rows(Random random, int bound) {
+        final int[][] rows = new int[40][];
+        for (int r = 0; r < rows.length - 1; r++) {
+            final int[] keys = random.ints(0, bound).distinct().limit(random.nextInt(r < 20 ? 10 : 60)).sorted()
+                    .toArray();
+            rows[r] = new int[keys.length * 2];
+            for (int i = 0; i < keys.length; i++) {
+                rows[r][2 * i] = keys[i];
+                rows[r][2 * i + 1] = random.nextInt(2 * bound) - bound;
+            }
+        }
+        return rows;
+    }
+
+    private static byte[][] bytes(int[][] rows) {
+        final byte[][] table = new byte[rows.length][];
+        for (int r = 0; r < rows.length; r++) {
+            if (rows[r] != null) {
+                table[r] = new byte[rows[r].length];
+                for (int i = 0; i < rows[r].length; i++) {
+                    table[r][i] = (byte) rows[r][i];
+                }
+            }
+        }
+        return table;
+    }
+
+    private static short[][] shorts(int[][] rows) {
+        final short[][] table = new short[rows.length][];
+        for (int r = 0; r < rows.length; r++) {
+            if (rows[r] != null) {
+                table[r] = new short[rows[r].length];
+                for (int i = 0; i < rows[r].length; i++) {
+                    table[r][i] = (short) rows[r][i];
+                }
+            }
+        }
+        return table;
+    }
+
+    private static void assertLookups(int[][] rows, Table table, int bound) {
+        assertEquals(rows.length, table.rows());
+        for (int r = 0; r < rows.length; r++) {
+            final int[] row = rows[r];
+            assertEquals(row != null ? row.length : 0, table.length(r));
+            for (int key = -1; key <= bound; key++) {
+                int expected = Integer.MIN_VALUE;
+                for (int i = 0; row != null && i < row.length; i += 2) {
+                    if (row[i] == key) {
+                        expected = row[i + 1];
+                        assertEquals(key, table.get(r, i));
+                        assertEquals(expected, table.get(r, i + 1));
+                    }
+                }
+                assertEquals(expected, table.scan(r, key, Integer.MIN_VALUE));
+                if (row != null) {
+                    assertEquals(expected, table.find(r, key, Integer.MIN_VALUE));
+                }
+            }
+        }
+    }
+
+    @Test
+    void looksUpTheRowsOfEveryWidth() {
+        final Random random = new Random(48);
+        final int[][] small = rows(random, Byte.MAX_VALUE);
+        assertLookups(small, Table.of(bytes(small)), Byte.MAX_VALUE);
+        assertLookups(small, Table.of(shorts(small)), Byte.MAX_VALUE);
+        assertLookups(small, Table.of(small), Byte.MAX_VALUE);
+
+        final int[][] medium = rows(random, Short.MAX_VALUE);
+        assertLookups(medium, Table.of(shorts(medium)), Short.MAX_VALUE);
+        assertLookups(medium, Table.of(medium), Short.MAX_VALUE);
+    }
+
+    @Test
+    void looksUpTheRowsBeyondShorts() {
+        final int[][] rows = {{0, 70000, 40000, -40000, 70000, 1}, null};
+        final Table table = Table.of(rows);
+
+        assertInstanceOf(Table.IntTable.class, table);
+        assertEquals(70000, table.find(0, 0, -1));
+        assertEquals(-40000, table.find(0, 40000, -1));
+        assertEquals(1, table.scan(0, 70000, -1));
+        assertEquals(-1, table.scan(1, 70000, -1));
+    }
+
+    @Test
+    void picksTheTableOfTheArrays() {
+        assertInstanceOf(Table.ByteTable.class, Table.of(new byte[0][]));
+        assertInstanceOf(Table.ShortTable.class, Table.of(new short[0][]));
+        assertInstanceOf(Table.IntTable.class, Table.of(new int[0][]));
+        assertThrows(IllegalArgumentException.class, () -> Table.of(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> Table.of(null));
+    }
+}
@@ -0,0 +1,87 @@
+package java_cup.core;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * A parser of the bundled grammar whose actions have no side effects: the value of a reduction is the production
+ * with the values of its handle, the value of a token its own value. The lists of the given non terminals are built
+ * like the generated parser builds the ones of {@code []}, appended in place.
+ */
+final class TreeParser extends BaseParser {
+
+    /**
+     * The non terminal of the top level list of the productions, {@code (ID ::= ... SEMI | ERROR SEMI)[]}.
+     */
+    static final int PRODUCTION_LIST = 21;
+
+    private final Set<Integer> lists;
+    /**
+     * Told every value reduced, if not null.
+     */
+    Consumer<Object> reduced;
+
+    TreeParser(Integer... lists) {
+        this.lists = Set.of(lists);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    Object doAction(int actionId) {
+        final Stack<Symbol> stack = this.tokenStack;
+        final int lhs = PRODUCTION_TABLE.get(actionId, 0);
+        final int handleSize = PRODUCTION_TABLE.get(actionId, 1);
+        // the start production is the only one whose handle ends with EOF
+        if (handleSize != 0 && stack.peek().id == Tokens.EOF) {
+            goonParse = false;
+            return stack.peek(1).value;
+        }
+        final Object value;
+        if (lists.contains(lhs)) {
+            final Symbol first = stack.peek(handleSize - 1);
+            if (first.id == lhs && first.value instanceof List) {
+                final List<Object> list = (List<Object>) first.value;
+                list.add(stack.peek().value);
+                value = list;
+            } else {
+                final List<Object> list = new ArrayList<>();
+                list.add(stack.peek().value);
+                value = list;
+            }
+        } else {
+            final StringBuilder tree = new StringBuilder().append('(').append(actionId);
+            for (int i = handleSize - 1; i >= 0; i--) {
+                tree.append(' ').append(stack.peek(i).value);
+            }
+            value = tree.append(')').toString();
+        }
+        if (reduced != null) {
+            reduced.accept(value);
+        }
+        return value;
+    }
+
+    /**
+     * Parses the given text, pulling the tokens from the lexer.
+     */
+    Object parse(String text) throws Exception {
+        return parse(new Lexer(new StringReader(text))).value;
+    }
+
+    /**
+     * Scans the given text into its tokens, the last one is {@code EOF}.
+     */
+    static Symbol[] tokens(String text) throws IOException {
+        final Lexer lexer = new Lexer(new StringReader(text));
+        final List<Symbol> tokens = new ArrayList<>();
+        Symbol token;
+        do {
+            tokens.add(token = lexer.nextToken());
+        } while (token.id != Tokens.EOF);
+        return tokens.toArray(new Symbol[0]);
+    }
+}
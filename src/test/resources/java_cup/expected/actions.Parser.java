@@ -0,0 +1,76 @@
+
+//----------------------------------------------------
+// The following code was generated by CUP-WIT v1.0
+//----------------------------------------------------
+
+package java_cup.core;
+
+
+/**
+ * 
+ */
+public class Parser extends AbstractParser {
+
+    
+    @SuppressWarnings({
+            "unchecked",
+            "DataFlowIssue",
+            "java:S1479" // too many case clauses
+    })
+    final Object doAction(int actionId) {
+        var myStack = this.tokenStack;
+
+        return switch (actionId) {
+            case 7 -> // s ::= K7 C 
+            {
+String t = "%xmyStack.peek(0).value"; yield t + "%nope% %c.foo%";
+            }
+            case 0 -> // $START ::= s EOF 
+            {
+this.goonParse = false; yield myStack.peek(1).value;
+            }
+            case 5 -> // s ::= K5 A B 
+            {
+var aSymbol = myStack.peek(1);
+yield aSymbol;
+            }
+            case 12 -> // f ::= B 
+            {
+var bSymbol = myStack.peek(0);
+yield (String) bSymbol.value + (String) bSymbol.value;
+            }
+            case 2 -> // s ::= K2 e e 
+            {
+var l = (String) myStack.peek(1).value; yield (String) (String) myStack.peek(0).value;
+            }
+            case 9 -> // s ::= K9 e f g 
+            {
+var qSymbol = myStack.peek(2);
+                var rSymbol = myStack.peek(1);
+                var tSymbol = myStack.peek(0);
+yield (String) qSymbol.value + (String) rSymbol.value + (Integer) tSymbol.value + qSymbol.line() + rSymbol.column() + tSymbol;
+            }
+            case 1 -> // s ::= K1 e B 
+            {
+var xSymbol = myStack.peek(1);
+                var bSymbol = myStack.peek(0);
+yield xSymbol.line() * 1000 + bSymbol.column();
+            }
+            case 3 -> // s ::= K3 f C f 
+            {
+var xSymbol = myStack.peek(2);
+yield (String) xSymbol.value + (String) xSymbol.value + (String) myStack.peek(0).value;
+            }
+            case 13 -> // g ::= C 
+1;
+            case 4,   // s ::= K4 g 
+                 10,   // s ::= B 
+                 11 -> // e ::= A 
+myStack.peek(0).value;
+            case 6,   // s ::= K6 A A 
+                 8 -> // s ::= K8 e C 
+myStack.peek(1).value;
+            default -> throw new RuntimeException("Invalid action id.");
+        };
+    }
+}
@@ -0,0 +1,159 @@
+
+//----------------------------------------------------
+// The following code was generated by CUP-WIT v1.0
+//----------------------------------------------------
+
+package java_cup.core;
+
+import java_cup.Assoc;
+import java_cup.symbol;
+
+/**
+ * 
+ */
+public class Parser extends AbstractParser {
+
+    
+    @SuppressWarnings({
+            "unchecked",
+            "DataFlowIssue",
+            "java:S1479" // too many case clauses
+    })
+    final Object doAction(int actionId) {
+        var myStack = this.tokenStack;
+
+        return switch (actionId) {
+            case 30 -> // preced ::= PRECEDENCE LEFT ID$$lst$COMMA SEMI 
+            {
+addPrecedence(Assoc.LEFT, (java.util.List<String>) myStack.peek(1).value); yield null;
+            }
+            case 32 -> // preced ::= PRECEDENCE NONASSOC ID$$lst$COMMA SEMI 
+            {
+addPrecedence(Assoc.NONASSOC, (java.util.List<String>) myStack.peek(1).value); yield null;
+            }
+            case 31 -> // preced ::= PRECEDENCE RIGHT ID$$lst$COMMA SEMI 
+            {
+addPrecedence(Assoc.RIGHT, (java.util.List<String>) myStack.peek(1).value); yield null;
+            }
+            case 3 -> // $IPNT_1 ::= IMPORT CLASSNAME 
+            {
+context.addImport((String) myStack.peek(0).value); yield null;
+            }
+            case 0 -> // $IPNT_0 ::= PACKAGE CLASSNAME 
+            {
+context.setPackageName((String) myStack.peek(0).value); yield null;
+            }
+            case 18 -> // $IPNT_2 ::= ID COLON_COLON_EQUALS prodPart$$lst$$$lst$BAR SEMI 
+            {
+createProduction((String) myStack.peek(3).value, (java.util.List<java.util.List<Object>>) myStack.peek(1).value); yield null;
+            }
+            case 28 -> // varTerm ::= NONTERMINAL typeName ID$$lst$COMMA SEMI 
+            {
+declearNonTerminals((java.util.List<String>) myStack.peek(1).value, (String) myStack.peek(2).value); yield null;
+            }
+            case 29 -> // varTerm ::= NONTERMINAL ID$$lst$COMMA SEMI 
+            {
+declearNonTerminals((java.util.List<String>) myStack.peek(1).value, null); yield null;
+            }
+            case 26 -> // varTerm ::= TERMINAL typeName ID$$lst$COMMA SEMI 
+            {
+declearTerminals((java.util.List<String>) myStack.peek(1).value, (String) myStack.peek(2).value); yield null;
+            }
+            case 27 -> // varTerm ::= TERMINAL ID$$lst$COMMA SEMI 
+            {
+declearTerminals((java.util.List<String>) myStack.peek(1).value, null); yield null;
+            }
+            case 22 -> // $START ::= start EOF 
+            {
+this.goonParse = false; yield myStack.peek(1).value;
+            }
+            case 5,   // $IPNT_1$$lst$ ::= $IPNT_1$$lst$ $IPNT_1 
+                 9,   // varTerm$$lst$ ::= varTerm$$lst$ varTerm 
+                 11,   // preced$$lst$ ::= preced$$lst$ preced 
+                 15,   // prodPart$$lst$ ::= prodPart$$lst$ prodPart 
+                 21 -> // $IPNT_2$$lst$ ::= $IPNT_2$$lst$ $IPNT_2 
+            {
+var list = (java.util.List<Object>) (myStack.peek(1).value); list.add(myStack.peek(0).value); yield list;
+            }
+            case 17,   // prodPart$$lst$$$lst$BAR ::= prodPart$$lst$$$lst$BAR BAR prodPart$$lst$ 
+                 25 -> // ID$$lst$COMMA ::= ID$$lst$COMMA COMMA ID 
+            {
+var list = (java.util.List<Object>) (myStack.peek(2).value); list.add(myStack.peek(0).value); yield list;
+            }
+            case 4,   // $IPNT_1$$lst$ ::= $IPNT_1 
+                 8,   // varTerm$$lst$ ::= varTerm 
+                 10,   // preced$$lst$ ::= preced 
+                 14,   // prodPart$$lst$ ::= prodPart 
+                 16,   // prodPart$$lst$$$lst$BAR ::= prodPart$$lst$ 
+                 20,   // $IPNT_2$$lst$ ::= $IPNT_2 
+                 24 -> // ID$$lst$COMMA ::= ID 
+            {
+var list = new java.util.ArrayList<>(); list.add(myStack.peek(0).value); yield list;
+            }
+            case 49 -> // typearguement ::= QUESTION 
+" ? ";
+            case 50 -> // typearguement ::= QUESTION EXTENDS robustIdent 
+" ? extends " + ((String) myStack.peek(0).value);
+            case 51 -> // typearguement ::= QUESTION SUPER robustIdent 
+" ? super " + ((String) myStack.peek(0).value);
+            case 45 -> // labid ::= COLON DOLLAR 
+"$";
+            case 59 -> // robustIdent ::= LEFT 
+"left";
+            case 61 -> // robustIdent ::= NONASSOC 
+"nonassoc";
+            case 57 -> // robustIdent ::= NONTERMINAL 
+"nonterminal";
+            case 58 -> // robustIdent ::= PRECEDENCE 
+"precedence";
+            case 60 -> // robustIdent ::= RIGHT 
+"right";
+            case 56 -> // robustIdent ::= TERMINAL 
+"terminal";
+            case 47 -> // typearglist ::= typearglist COMMA typearguement 
+((String) myStack.peek(2).value) + ',' + ((String) myStack.peek(0).value);
+            case 53 -> // typeName ::= typeName LBRACK RBRACK 
+((String) myStack.peek(2).value).concat("[]");
+            case 54 -> // typeName ::= robustIdent LT typearglist GT 
+((String) myStack.peek(3).value) + '<' + ((String) myStack.peek(1).value) +'>';
+            case 36 -> // prodPartSym ::= LPAREN prodPart$$lst$$$lst$BAR RPAREN 
+createInsideProductionNonTerminalIfAbsent((java.util.List<java.util.List<Object>>) myStack.peek(1).value);
+            case 37 -> // prodPartSym ::= prodPartSym LBRACK ID$$opt RBRACK 
+createListNonTerminalIfAbsent((symbol) myStack.peek(3).value, (String) myStack.peek(1).value);
+            case 40 -> // prodPart ::= prodPartSym labid$$opt 
+createProductionItem((symbol) myStack.peek(1).value, (String) myStack.peek(0).value);
+            case 41 -> // prodPart ::= prodPartSym labid$$opt QUESTION 
+createProductionItem(createOptionableNonTerminalIfAbsent((symbol) myStack.peek(2).value), (String) myStack.peek(1).value);
+            case 35 -> // prodPartSym ::= ID 
+getSymbol((String) myStack.peek(0).value);
+            case 43 -> // prodPart ::= PERCENT_PREC ID 
+getTerminalPrecedence((String) myStack.peek(0).value);
+            case 2,   // $IPNT_0$$opt ::= $IPNT_0 
+                 7,   // $IPNT_1$$lst$$$opt ::= $IPNT_1$$lst$ 
+                 13,   // preced$$lst$$$opt ::= preced$$lst$ 
+                 34,   // ID$$opt ::= ID 
+                 39,   // labid$$opt ::= labid 
+                 42,   // prodPart ::= CODE 
+                 44,   // labid ::= COLON robustIdent 
+                 46,   // typearglist ::= typearguement 
+                 48,   // typearguement ::= typeName 
+                 52,   // typeName ::= robustIdent 
+                 55 -> // robustIdent ::= ID 
+myStack.peek(0).value;
+            case 1,   // $IPNT_0$$opt ::= 
+                 6,   // $IPNT_1$$lst$$$opt ::= 
+                 12,   // preced$$lst$$$opt ::= 
+                 19,   // $IPNT_2 ::= ERROR SEMI 
+                 23,   // start ::= $IPNT_0$$opt $IPNT_1$$lst$$$opt varTerm$$lst$ preced$$lst$$$opt $IPNT_2$$lst$ 
+                 33,   // ID$$opt ::= 
+                 38 -> // labid$$opt ::= 
+null;
+            default -> throw new RuntimeException("Invalid action id.");
+        };
+    }
+
+    @Override
+    boolean positions() {
+        return false;
+    }
+}
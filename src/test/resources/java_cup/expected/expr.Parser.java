@@ -0,0 +1,67 @@
+
+//----------------------------------------------------
+// The following code was generated by CUP-WIT v1.0
+//----------------------------------------------------
+
+
+/**
+ * 
+ */
+public class Parser extends AbstractParser {
+
+    
+    @SuppressWarnings({
+            "unchecked",
+            "DataFlowIssue",
+            "java:S1479" // too many case clauses
+    })
+    final Object doAction(int actionId) {
+        var myStack = this.tokenStack;
+
+        return switch (actionId) {
+            case 2 -> // $START ::= s EOF 
+            {
+this.goonParse = false; yield myStack.peek(1).value;
+            }
+            case 1 -> // s$$lst$COMMA ::= s$$lst$COMMA COMMA s 
+            {
+var list = (java.util.List<Object>) (myStack.peek(2).value); list.add(myStack.peek(0).value); yield list;
+            }
+            case 0 -> // s$$lst$COMMA ::= s 
+            {
+var list = new java.util.ArrayList<>(); list.add(myStack.peek(0).value); yield list;
+            }
+            case 3 -> // s ::= IF LP e RP s 
+(Integer) myStack.peek(2).value != 0 ? myStack.peek(0).value : null;
+            case 9 -> // e ::= e TIMES e 
+(Integer) myStack.peek(2).value * (Integer) myStack.peek(0).value;
+            case 7 -> // e ::= e PLUS e 
+(Integer) myStack.peek(2).value + (Integer) myStack.peek(0).value;
+            case 8 -> // e ::= e MINUS e 
+(Integer) myStack.peek(2).value - (Integer) myStack.peek(0).value;
+            case 12 -> // e ::= e LT e 
+(Integer) myStack.peek(2).value < (Integer) myStack.peek(0).value ? 1 : 0;
+            case 11 -> // e ::= e EQ e 
+(Integer) myStack.peek(2).value.equals((Integer) myStack.peek(0).value) ? 1 : 0;
+            case 4 -> // s ::= IF LP e RP s ELSE s 
+(Integer) myStack.peek(4).value != 0 ? myStack.peek(2).value : myStack.peek(0).value;
+            case 10 -> // e ::= e POW e 
+(int) Math.pow((Integer) myStack.peek(2).value, (Integer) myStack.peek(0).value);
+            case 6 -> // s ::= LB s$$lst$COMMA RB 
+(java.util.List<Object>) myStack.peek(1).value;
+            case 13 -> // e ::= MINUS e 
+-(Integer) myStack.peek(0).value;
+            case 15 -> // e ::= NUM 
+myStack.peek(0).value;
+            case 5,   // s ::= e SEMI 
+                 14 -> // e ::= LP e RP 
+myStack.peek(1).value;
+            default -> throw new RuntimeException("Invalid action id.");
+        };
+    }
+
+    @Override
+    boolean positions() {
+        return false;
+    }
+}